@@ -0,0 +1,121 @@
+package de.medical.app.benchmarks;
+
+import de.medical.app.MedicalApplication;
+import de.medical.app.model.Appointment;
+import de.medical.app.model.Patient;
+import de.medical.app.model.User;
+import de.medical.app.repository.AppointmentRepository;
+import de.medical.app.repository.PatientRepository;
+import de.medical.app.repository.UserRepository;
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.service.CustomUserDetailService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * ApplicationState поднимает контекст приложения (со встроенной базой H2) один раз на форк JMH
+ * и заполняет его тестовыми данными:
+ * - PATIENTS пациентов с пользователями benchN и APPOINTMENTS_PER_PATIENT записями у каждого;
+ * - пациента с длинной историей (HEAVY_APPOINTMENTS записей) и пользователем heavy.
+ * Все пользователи получают один заранее вычисленный хэш пароля, чтобы заполнение не занимало минуты.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    static final int PATIENTS = 1_000;
+    static final int APPOINTMENTS_PER_PATIENT = 20;
+    static final int HEAVY_APPOINTMENTS = 2_000;
+    static final String PASSWORD = "bench-password";
+
+    ConfigurableApplicationContext context;
+    MedicalUserDetails heavyUser; // Пользователь пациента с длинной историей.
+
+    @Setup(Level.Trial)
+    public void start() {
+        // Аргументы командной строки имеют приоритет над application.properties.
+        context = new SpringApplicationBuilder(MedicalApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        seed();
+        heavyUser = bean(CustomUserDetailService.class).loadUserByUsername("heavy");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed() {
+        PatientRepository patientRepository = bean(PatientRepository.class);
+        UserRepository userRepository = bean(UserRepository.class);
+        AppointmentRepository appointmentRepository = bean(AppointmentRepository.class);
+        String passwordHash = bean(BCryptPasswordEncoder.class).encode(PASSWORD);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(bean(PlatformTransactionManager.class));
+        LocalDateTime start = LocalDateTime.of(2025, 1, 6, 8, 0);
+
+        for (int chunk = 0; chunk < PATIENTS; chunk += 100) {
+            int from = chunk;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Appointment> appointments = new ArrayList<>();
+                for (int i = from; i < from + 100; i++) {
+                    Patient patient = patientRepository.save(Patient.builder()
+                            .name("Patient " + i)
+                            .birthDate(LocalDate.of(1950 + i % 60, 1 + i % 12, 1 + i % 28))
+                            .build());
+                    userRepository.save(User.builder()
+                            .username("bench" + i)
+                            .password(passwordHash)
+                            .role("ROLE_USER")
+                            .patient(patient)
+                            .build());
+                    for (int j = 0; j < APPOINTMENTS_PER_PATIENT; j++) {
+                        appointments.add(Appointment.builder()
+                                .patient(patient)
+                                .dateTime(start.plusDays(j * 7L).plusMinutes(30L * (i % 20)))
+                                .build());
+                    }
+                }
+                appointmentRepository.saveAll(appointments);
+            });
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Patient patient = patientRepository.save(Patient.builder()
+                    .name("Heavy History")
+                    .birthDate(LocalDate.of(1940, 5, 5))
+                    .build());
+            userRepository.save(User.builder()
+                    .username("heavy")
+                    .password(passwordHash)
+                    .role("ROLE_USER")
+                    .patient(patient)
+                    .build());
+            List<Appointment> appointments = new ArrayList<>();
+            for (int j = 0; j < HEAVY_APPOINTMENTS; j++) {
+                appointments.add(Appointment.builder()
+                        .patient(patient)
+                        .dateTime(start.plusDays(j).withHour(18))
+                        .build());
+            }
+            appointmentRepository.saveAll(appointments);
+        });
+    }
+}
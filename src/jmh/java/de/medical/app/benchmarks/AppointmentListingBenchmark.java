@@ -0,0 +1,71 @@
+package de.medical.app.benchmarks;
+
+import de.medical.app.controller.AppointmentController;
+import de.medical.app.security.MedicalUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Бенчмарк выборки записей пациента через AppointmentController.getAll (первая страница)
+ * в полном и компактном виде, а также календарной выборки за месяц из индекса в памяти.
+ * Пользователь — пациент с длинной историей (ApplicationState.HEAVY_APPOINTMENTS записей).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AppointmentListingBenchmark {
+
+    @Param({"50", "500"})
+    int pageSize;
+
+    AppointmentController controller;
+
+    @Setup(Level.Trial)
+    public void authenticate(ApplicationState application) {
+        controller = application.bean(AppointmentController.class);
+        MedicalUserDetails user = application.heavyUser;
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+    }
+
+    @TearDown(Level.Trial)
+    public void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> patientPageFull() {
+        return controller.getAll(null, pageSize, "full", null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> patientPageCompact() {
+        return controller.getAll(null, pageSize, "compact", null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> patientCalendarMonth() {
+        LocalDateTime from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        return controller.getRange(from, from.plusMonths(1), null);
+    }
+}
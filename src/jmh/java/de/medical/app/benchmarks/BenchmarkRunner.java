@@ -0,0 +1,30 @@
+package de.medical.app.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/*
+ * BenchmarkRunner запускает JMH-бенчмарки и сохраняет результаты в формате JSON,
+ * чтобы их можно было сравнивать между версиями (например, jmh.morethan.io или скриптом в CI).
+ *
+ * Первый аргумент — путь к файлу результатов, остальные — стандартные параметры командной строки JMH.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+        CommandLineOptions jmhOptions = new CommandLineOptions(Arrays.copyOfRange(args, Math.min(1, args.length), args.length));
+        new Runner(new OptionsBuilder()
+                .parent(jmhOptions)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build())
+                .run();
+    }
+}
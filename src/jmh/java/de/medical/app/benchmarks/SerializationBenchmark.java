@@ -0,0 +1,97 @@
+package de.medical.app.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.dto.CalendarEntry;
+import de.medical.app.dto.CompactAppointmentPage;
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.model.Appointment;
+import de.medical.app.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Бенчмарк сериализации Jackson списков записей и пациентов типичных размеров (без контекста Spring).
+ * ObjectMapper настраивается так же, как в приложении (Jackson2ObjectMapperBuilder со значениями Spring Boot по умолчанию).
+ * Записи относятся к PATIENTS_PER_LIST пациентам, как в списке администратора.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final int PATIENTS_PER_LIST = 20;
+
+    @Param({"50", "500", "5000"})
+    int size;
+
+    ObjectMapper objectMapper;
+    List<Appointment> appointments;
+    CompactAppointmentPage compactPage;
+    List<Patient> patients;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<Patient> owners = new ArrayList<>();
+        List<PatientSummary> summaries = new ArrayList<>();
+        for (long i = 1; i <= PATIENTS_PER_LIST; i++) {
+            Patient patient = new Patient(i, "Patient Name " + i, LocalDate.of(1960, 1, 1).plusDays(i * 97), 0L, 0L);
+            owners.add(patient);
+            summaries.add(new PatientSummary(patient.getId(), patient.getName(), patient.getBirthDate()));
+        }
+
+        appointments = new ArrayList<>(size);
+        List<CalendarEntry> entries = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 6, 8, 0);
+        for (int i = 0; i < size; i++) {
+            Patient owner = owners.get(i % owners.size());
+            Appointment appointment = Appointment.builder()
+                    .id((long) i + 1).dateTime(start.plusMinutes(30L * i)).patient(owner).version(0L).build();
+            appointments.add(appointment);
+            entries.add(new CalendarEntry(appointment.getId(), owner.getId(), appointment.getDateTime()));
+        }
+        compactPage = new CompactAppointmentPage(entries, summaries, null);
+
+        patients = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            patients.add(new Patient(i, "Patient Name " + i, LocalDate.of(1960, 1, 1).plusDays(i % 20_000), 0L, 0L));
+        }
+    }
+
+    @Benchmark
+    public byte[] appointmentsFull() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public byte[] appointmentsCompact() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(compactPage);
+    }
+
+    @Benchmark
+    public byte[] patients() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patients);
+    }
+}
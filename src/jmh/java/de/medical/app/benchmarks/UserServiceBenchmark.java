@@ -0,0 +1,68 @@
+package de.medical.app.benchmarks;
+
+import de.medical.app.model.User;
+import de.medical.app.security.PrincipalCache;
+import de.medical.app.service.CustomUserDetailService;
+import de.medical.app.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Бенчмарки регистрации (UserService.registerUser, включая хэширование BCrypt)
+ * и загрузки пользователя (CustomUserDetailService.loadUserByUsername) с попаданием в кэш пользователей и без него.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UserServiceBenchmark {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    UserService userService;
+    CustomUserDetailService userDetailService;
+    PrincipalCache principalCache;
+    int next;
+
+    @Setup(Level.Trial)
+    public void lookup(ApplicationState application) {
+        userService = application.bean(UserService.class);
+        userDetailService = application.bean(CustomUserDetailService.class);
+        principalCache = application.bean(PrincipalCache.class);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public User registerUser() {
+        long id = SEQUENCE.incrementAndGet();
+        return userService.registerUser("registered" + id, "password" + id, "Registered " + id, LocalDate.of(1985, 6, 15));
+    }
+
+    @Benchmark
+    public UserDetails loadUserCached() {
+        return userDetailService.loadUserByUsername("bench" + (next++ % 100));
+    }
+
+    @Benchmark
+    public UserDetails loadUserUncached() {
+        String username = "bench" + (next++ % ApplicationState.PATIENTS);
+        principalCache.invalidate(username);
+        return userDetailService.loadUserByUsername(username);
+    }
+}
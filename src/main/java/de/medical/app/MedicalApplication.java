@@ -1,13 +1,25 @@
 package de.medical.app;
 
+import de.medical.app.metrics.StartupPhaseReport;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
-@SpringBootApplication
+// Пул R2DBC реактивного API создаётся в ReactiveApiConfig только при medical.reactive.enabled=true;
+// реактивный менеджер транзакций не нужен и конфликтовал бы с JpaTransactionManager.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class MedicalApplication {
 
+    // Количество шагов запуска, сохраняемых для отчёта о запуске и /actuator/startup.
+    private static final int STARTUP_STEPS = 10_000;
+
     public static void main(String[] args) {
-        SpringApplication.run(MedicalApplication.class, args);
+        SpringApplication application = new SpringApplication(MedicalApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.addListeners(new StartupPhaseReport());
+        application.run(args);
     }
 
 }
@@ -0,0 +1,89 @@
+package de.medical.app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/*
+ * AsyncConfig определяет пулы потоков для фоновых задач приложения.
+ * Фоновые задачи выполняются вне потока HTTP-запроса, поэтому запрос не ждёт их завершения.
+ *
+ * Обработка запросов в виртуальных потоках включается профилем virtual-threads (spring.threads.virtual.enabled=true).
+ * Пулы ниже остаются пулами обычных потоков: их размер намеренно ограничивает нагрузку на базу и процессор.
+ */
+@Configuration
+@Slf4j
+public class AsyncConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /*
+     * На Java ниже 21 Spring Boot игнорирует spring.threads.virtual.enabled и продолжает использовать пул Tomcat,
+     * поэтому о несоответствии предупреждаем явно.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkVirtualThreads() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled=true requires Java 21+, running on Java {}: requests use platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
+    /*
+     * Пул для фонового удаления больших историй пациентов.
+     * Размер пула намеренно небольшой: удаление идёт порциями и не должно вытеснять основную нагрузку на базу данных.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor purgeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("purge-");
+        return executor;
+    }
+
+    /*
+     * Поток для фонового создания демонстрационных данных (medical.seed.async=true, профиль fast-start).
+     */
+    @Bean
+    public ThreadPoolTaskExecutor seedExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("seed-");
+        return executor;
+    }
+
+    /*
+     * Пул для параллельного хэширования паролей BCrypt при массовом импорте.
+     * Хэширование нагружает только процессор, поэтому по умолчанию размер пула равен числу ядер.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor(@Value("${medical.import.hash-threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("bcrypt-");
+        return executor;
+    }
+
+    /*
+     * Поток для периодического обслуживания данных (очистка журнала изменений записей, см. AppointmentChangeLog).
+     */
+    @Bean
+    public ThreadPoolTaskScheduler maintenanceScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("maintenance-");
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+}
@@ -0,0 +1,65 @@
+package de.medical.app.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * HibernateCacheConfig настраивает кэш второго уровня Hibernate в памяти процесса (Caffeine через JCache).
+ *
+ * Области кэша создаются здесь с ограничением размера и временем жизни из application.properties:
+ * - patients, users — сущности Patient и User;
+ * - область результатов кэшируемых запросов (findByUsername, findUserIdByPatientId).
+ * Область временных меток обновления таблиц не ограничивается и не истекает: по ней Hibernate определяет,
+ * что результат запроса устарел после изменения таблицы, и её вытеснение привело бы к устаревшим ответам.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String PATIENT_REGION = "patients";
+    public static final String USER_REGION = "users";
+
+    // Номер менеджера кэшей: у каждого контекста приложения в JVM (например, в тестах) свои области кэша.
+    private static final AtomicInteger MANAGERS = new AtomicInteger();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${medical.cache.entity.max-size:50000}") long entityMaxSize,
+                                              @Value("${medical.cache.entity.ttl:10m}") Duration entityTtl,
+                                              @Value("${medical.cache.query.max-size:10000}") long queryMaxSize,
+                                              @Value("${medical.cache.query.ttl:10m}") Duration queryTtl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("medical-hibernate-" + MANAGERS.incrementAndGet()), getClass().getClassLoader());
+        cacheManager.createCache(PATIENT_REGION, region(entityMaxSize, entityTtl));
+        cacheManager.createCache(USER_REGION, region(entityMaxSize, entityTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryMaxSize, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    /*
+     * Передаёт Hibernate уже настроенный менеджер кэшей вместо создания менеджера по умолчанию.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
@@ -0,0 +1,60 @@
+package de.medical.app.config;
+
+import de.medical.app.metrics.HibernateRequestCounter;
+import de.medical.app.metrics.LoggingMetrics;
+import de.medical.app.metrics.RequestMetricsInterceptor;
+import de.medical.app.metrics.RoleTaggingObservationConvention;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+ * MetricsConfig подключает метрики уровня запроса к Spring MVC и Hibernate.
+ * Метрики публикуются через Actuator (в том числе в формате Prometheus: /actuator/prometheus).
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /*
+     * Соглашение об именах и тегах метрики http.server.requests с дополнительным тегом role.
+     */
+    @Bean
+    public RoleTaggingObservationConvention roleTaggingObservationConvention() {
+        return new RoleTaggingObservationConvention();
+    }
+
+    /*
+     * Регистрирует счётчик SQL-запросов и загруженных сущностей в Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestCounterCustomizer() {
+        HibernateRequestCounter counter = new HibernateRequestCounter();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+            properties.put(AvailableSettings.INTERCEPTOR, counter);
+        };
+    }
+
+    /*
+     * Метрики асинхронного логирования: потерянные и отброшенные выборкой события, длина очередей.
+     */
+    @Bean
+    public LoggingMetrics loggingMetrics() {
+        return new LoggingMetrics();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(meterRegistry));
+    }
+}
@@ -0,0 +1,65 @@
+package de.medical.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.reactive.ReactiveApiServer;
+import de.medical.app.reactive.ReactiveAppointmentHandler;
+import de.medical.app.reactive.ReactivePatientHandler;
+import de.medical.app.reactive.ReactiveReadRepository;
+import de.medical.app.security.TokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * ReactiveApiConfig поднимает реактивный API чтения (medical.reactive.enabled=true): пул R2DBC,
+ * репозиторий чтения, обработчики и сервер Reactor Netty на порту medical.reactive.port.
+ *
+ * Пул R2DBC подключается к той же базе, что и JDBC (medical.reactive.r2dbc-url, логин и пароль spring.datasource.*),
+ * и создаётся здесь, а не автоконфигурацией Spring Boot: та подключила бы R2dbcTransactionManager рядом с
+ * JpaTransactionManager, и @Transactional перестал бы однозначно выбирать менеджер транзакций.
+ * Пул не регистрируется как бин ConnectionFactory: при таком бине Spring Boot не создаёт JDBC DataSource.
+ * Реактивные чтения выполняются без транзакций (каждый запрос — один оператор SELECT) и всегда на основной базе:
+ * маршрутизация на реплики (ReplicaDataSourceConfig) действует только для JDBC.
+ */
+@Configuration
+@ConditionalOnProperty(name = "medical.reactive.enabled", havingValue = "true")
+public class ReactiveApiConfig {
+
+    /*
+     * Репозиторий владеет пулом R2DBC и закрывает его вместе с контекстом.
+     * Метрики пула публикуются как r2dbc.pool.* с тегом name=reactive.
+     */
+    @Bean(destroyMethod = "close")
+    public ReactiveReadRepository reactiveReadRepository(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                                         @Value("${medical.reactive.r2dbc-url}") String url,
+                                                         @Value("${medical.reactive.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, properties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, properties.determinePassword())
+                .build();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive")
+                .initialSize(0)
+                .maxSize(poolSize)
+                .build());
+        new ConnectionPoolMetrics(pool, "reactive", Tags.empty()).bindTo(meterRegistry);
+        return new ReactiveReadRepository(pool);
+    }
+
+    @Bean
+    public ReactiveApiServer reactiveApiServer(ReactiveReadRepository reactiveReadRepository, TokenService tokenService,
+                                               ObjectMapper objectMapper,
+                                               @Value("${medical.reactive.port:8081}") int port) {
+        return new ReactiveApiServer(new ReactiveAppointmentHandler(reactiveReadRepository),
+                new ReactivePatientHandler(reactiveReadRepository), tokenService, objectMapper, port);
+    }
+}
@@ -0,0 +1,136 @@
+package de.medical.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import de.medical.app.datasource.LocalReplicaSynchronizer;
+import de.medical.app.datasource.ReadOnlyCacheModeJpaDialect;
+import de.medical.app.datasource.ReplicaLagMonitor;
+import de.medical.app.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * ReplicaDataSourceConfig разделяет запросы между основной базой и репликами (medical.datasource.replicas.enabled=true).
+ *
+ * Приложение получает один DataSource — LazyConnectionDataSourceProxy над основной базой.
+ * Прокси откладывает получение соединения до первого SQL-запроса; к этому моменту транзакция
+ * с @Transactional(readOnly = true) уже пометила соединение как read-only, и прокси берёт его
+ * из ReplicaRoutingDataSource. Все остальные транзакции (и запросы вне транзакций) идут на основную базу.
+ *
+ * Реплики перечисляются в medical.datasource.replicas.urls и используют логин и пароль основной базы.
+ * Профиль replicas поднимает две реплики H2 в памяти и синхронизирует их с основной базой (LocalReplicaSynchronizer).
+ */
+@Configuration
+@ConditionalOnProperty(name = "medical.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    /*
+     * Пул основной базы, настраиваемый свойствами spring.datasource.* и spring.datasource.hikari.*,
+     * как пул, который Spring Boot создаёт без реплик.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /*
+     * Пулы реплик (по одному на URL) только для чтения.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties, MeterRegistry meterRegistry,
+                                                             @Value("${medical.datasource.replicas.urls}") List<String> urls,
+                                                             @Value("${medical.datasource.replicas.pool-size:10}") int poolSize) {
+        List<HikariDataSource> pools = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setJdbcUrl(urls.get(i));
+            pool.setUsername(properties.determineUsername());
+            pool.setPassword(properties.determinePassword());
+            pool.setMaximumPoolSize(poolSize);
+            pool.setReadOnly(true);
+            // Пул создаётся при первом соединении, поэтому реплика может подняться позже приложения.
+            pool.setInitializationFailTimeout(-1);
+            // Метрики hikaricp.connections.* с тегом pool=replica-N, как у основного пула.
+            pool.setMetricRegistry(meterRegistry);
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, pools, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+
+    /*
+     * Поток для проверки отставания реплик и локальной синхронизации.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler replicaScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("replica-");
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                               ReplicaRoutingDataSource replicaRoutingDataSource,
+                                               @Qualifier("replicaScheduler") ThreadPoolTaskScheduler replicaScheduler,
+                                               @Value("${medical.datasource.replicas.check-interval:1s}") Duration checkInterval,
+                                               @Value("${medical.datasource.replicas.max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaRoutingDataSource, replicaScheduler, checkInterval, maxLag);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "medical.datasource.replicas.local-sync.enabled", havingValue = "true")
+    public LocalReplicaSynchronizer localReplicaSynchronizer(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             @Qualifier("replicaScheduler") ThreadPoolTaskScheduler replicaScheduler,
+                                                             @Value("${medical.datasource.replicas.urls}") List<String> urls,
+                                                             @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations,
+                                                             @Value("${medical.datasource.replicas.local-sync.interval:500ms}") Duration interval) {
+        return new LocalReplicaSynchronizer(primaryDataSource, urls, properties.determineUsername(),
+                properties.determinePassword(), locations, replicaScheduler, interval);
+    }
+
+    /*
+     * Читающие транзакции выполняются на репликах и не должны наполнять кэш второго уровня (см. ReadOnlyCacheModeJpaDialect).
+     * Диалект подменяется после инициализации менеджера транзакций, так как тот берёт диалект из EntityManagerFactory.
+     */
+    @Bean
+    public static BeanPostProcessor readOnlyCacheModeJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JpaTransactionManager transactionManager) {
+                    transactionManager.setJpaDialect(new ReadOnlyCacheModeJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package de.medical.app.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+
+import javax.sql.DataSource;
+
+/*
+ * StartupConfig задаёт, какие бины остаются неленивыми при spring.main.lazy-initialization=true (профиль fast-start).
+ *
+ * Ленивыми становятся второстепенные бины (Actuator, OpenAPI, Thymeleaf и т.п.): они создаются при первом обращении.
+ * Пул соединений, EntityManagerFactory (вместе с миграциями Flyway) и контроллеры со всеми зависимостями
+ * создаются при запуске, иначе их инициализация (секунды на холодной JVM) пришлась бы на первый запрос.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeansExcludeFilter() {
+        LazyInitializationExcludeFilter infrastructure =
+                LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class);
+        return (beanName, beanDefinition, beanType) -> infrastructure.isExcluded(beanName, beanDefinition, beanType)
+                || AnnotatedElementUtils.hasAnnotation(beanType, Controller.class);
+    }
+}
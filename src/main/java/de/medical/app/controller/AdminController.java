@@ -0,0 +1,108 @@
+package de.medical.app.controller;
+
+import de.medical.app.config.HibernateCacheConfig;
+import de.medical.app.security.PrincipalCache;
+import de.medical.app.security.TokenService;
+import de.medical.app.service.BulkImportService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * AdminController предоставляет служебные эндпоинты для администраторов.
+ * Доступ к /admin/** ограничен ролью ADMIN в SecurityConfig.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    // Кэш данных аутентифицированных пользователей.
+    private final PrincipalCache principalCache;
+
+    // Сервис токенов доступа (статистика проверки токенов).
+    private final TokenService tokenService;
+
+    // Сервис массового импорта пользователей.
+    private final BulkImportService bulkImportService;
+
+    // Статистика Hibernate (кэш второго уровня и кэш запросов).
+    private final Statistics hibernateStatistics;
+
+    // Конструктор для внедрения зависимостей.
+    public AdminController(PrincipalCache principalCache, TokenService tokenService, BulkImportService bulkImportService,
+                           EntityManagerFactory entityManagerFactory) {
+        this.principalCache = principalCache;
+        this.tokenService = tokenService;
+        this.bulkImportService = bulkImportService;
+        this.hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /*
+     * Эндпоинт для получения статистики кэшей (количество попаданий, промахов и текущий размер),
+     * кэша второго уровня Hibernate по областям и времени проверки токенов доступа.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        Map<String, Object> principal = new LinkedHashMap<>();
+        principal.put("hits", principalCache.hitCount());
+        principal.put("misses", principalCache.missCount());
+        principal.put("size", principalCache.size());
+
+        Map<String, Object> tokens = new LinkedHashMap<>();
+        tokens.put("validations", tokenService.validationCount());
+        tokens.put("failures", tokenService.failureCount());
+        tokens.put("avgMicros", tokenService.averageValidationNanos() / 1_000);
+        tokens.put("maxMicros", tokenService.maxValidationNanos() / 1_000);
+
+        Map<String, Object> secondLevel = new LinkedHashMap<>();
+        for (String region : List.of(HibernateCacheConfig.PATIENT_REGION, HibernateCacheConfig.USER_REGION)) {
+            CacheRegionStatistics regionStatistics = hibernateStatistics.getDomainDataRegionStatistics(region);
+            secondLevel.put(region, cacheStats(regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount()));
+        }
+        secondLevel.put("queries", cacheStats(hibernateStatistics.getQueryCacheHitCount(),
+                hibernateStatistics.getQueryCacheMissCount(), hibernateStatistics.getQueryCachePutCount()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("principalCache", principal);
+        stats.put("secondLevelCache", secondLevel);
+        stats.put("tokenValidation", tokens);
+        return ResponseEntity.ok(stats);
+    }
+
+    private static Map<String, Object> cacheStats(long hits, long misses, long puts) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("puts", puts);
+        result.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return result;
+    }
+
+    /*
+     * Эндпоинт для массового импорта пользователей и пациентов.
+     * Тело запроса читается потоком: text/csv (username,password,name,birthDate) или application/x-ndjson (UserDto).
+     * В ответе возвращается отчёт с количеством обработанных строк и скоростью импорта.
+     */
+    @PostMapping(value = "/import/users", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importUsers(HttpServletRequest request) throws IOException {
+        BulkImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? BulkImportService.Format.CSV
+                : BulkImportService.Format.NDJSON;
+        return ResponseEntity.ok(bulkImportService.importUsers(request.getInputStream(), format));
+    }
+}
@@ -1,13 +1,26 @@
 package de.medical.app.controller;
 
+import de.medical.app.dto.CompactAppointmentPage;
+import de.medical.app.dto.AppointmentChanges;
+import de.medical.app.dto.AppointmentListVersion;
+import de.medical.app.dto.CursorPage;
+import de.medical.app.dto.Versioned;
+import de.medical.app.index.AppointmentCalendarIndex;
 import de.medical.app.model.*;
 import de.medical.app.repository.*;
+import de.medical.app.security.MedicalUserDetails;
 import de.medical.app.service.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 /*
@@ -18,18 +31,54 @@ import java.util.*;
 @RequestMapping("/appointment")
 public class AppointmentController {
 
+    // Максимальная длина интервала календарной выборки.
+    private static final Duration MAX_RANGE = Duration.ofDays(62);
+
+    // Максимальное количество дней в запросе свободных слотов.
+    private static final int MAX_AVAILABILITY_DAYS = 62;
+
+    // Уникальный индекс времени записи (db/migration/V4__appointment_slot_unique.sql).
+    private static final String SLOT_CONSTRAINT = "uk_appointment_date_time";
+
     // Репозиторий для доступа к данным записей.
     private final AppointmentRepository appointmentRepository;
 
-    // Сервис для работы с пользователями, необходим для получения текущего аутентифицированного пользователя.
-    private final UserService userService;
+    // Сервис для получения текущего аутентифицированного пользователя.
+    private final CustomUserDetailService userDetailService;
     private final PatientRepository patientRepository;
 
+    // Сервис для постраничного чтения записей.
+    private final AppointmentService appointmentService;
+
+    // Сервис потоковой выгрузки данных.
+    private final ExportService exportService;
+
+    // Календарный индекс записей в памяти.
+    private final AppointmentCalendarIndex calendarIndex;
+
+    // Сервис поиска свободных слотов.
+    private final AvailabilityService availabilityService;
+
+    // Резервирование слотов на время создания записи.
+    private final SlotReservations slotReservations;
+
+    // Журнал изменений записей для инкрементальной синхронизации.
+    private final AppointmentChangeLog changeLog;
+
     // Конструктор для внедрения зависимостей.
-    public AppointmentController(AppointmentRepository appointmentRepository, UserService userService, PatientRepository patientRepository) {
+    public AppointmentController(AppointmentRepository appointmentRepository, CustomUserDetailService userDetailService, PatientRepository patientRepository,
+                                 AppointmentService appointmentService, ExportService exportService,
+                                 AppointmentCalendarIndex calendarIndex, AvailabilityService availabilityService,
+                                 SlotReservations slotReservations, AppointmentChangeLog changeLog) {
         this.appointmentRepository = appointmentRepository;
-        this.userService = userService;
+        this.userDetailService = userDetailService;
         this.patientRepository = patientRepository;
+        this.appointmentService = appointmentService;
+        this.exportService = exportService;
+        this.calendarIndex = calendarIndex;
+        this.availabilityService = availabilityService;
+        this.slotReservations = slotReservations;
+        this.changeLog = changeLog;
 
     }
 
@@ -37,19 +86,158 @@ public class AppointmentController {
      * Эндпоинт для получения записей.
      * Если текущий пользователь имеет роль ADMIN, возвращаются все записи.
      * В противном случае возвращаются только записи, связанные с пациентом данного пользователя.
+     * Записи отдаются постранично: в ответе приходит курсор nextCursor, который передаётся
+     * в параметре cursor для получения следующей страницы.
+     * С параметром view=compact записи ссылаются на пациента по id, а данные пациентов приходят
+     * один раз в отдельном списке patients.
+     * Страницы записей пациента содержат ETag по версии его списка записей; при совпадении с If-None-Match
+     * возвращается 304 без чтения страницы. Списки администратора (записи всех пациентов) отдаются без ETag.
      */
     @GetMapping
-    public ResponseEntity<?> getAll() {
-        User currentUser = getCurrentUser();
-        if ("ROLE_ADMIN".equals(currentUser.getRole())) {
-            return ResponseEntity.ok(appointmentRepository.findAll());
-        } else {
-            Long patientId = currentUser.getPatient().getId();
-            List<Appointment> appointments = appointmentRepository.findAll().stream()
-                    .filter(appointment -> appointment.getPatient().getId().equals(patientId))
-                    .toList();
-            return ResponseEntity.ok(appointments);
+    public ResponseEntity<?> getAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "size", defaultValue = "50") int size,
+                                    @RequestParam(value = "view", defaultValue = "full") String view,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        boolean compact = "compact".equalsIgnoreCase(view);
+        if (!compact && !"full".equalsIgnoreCase(view)) {
+            return ResponseEntity.badRequest().body("Unknown view: " + view);
+        }
+        MedicalUserDetails currentUser = getCurrentUser();
+        Long patientId = null;
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null) {
+                return ResponseEntity.ok(compact
+                        ? new CompactAppointmentPage(List.of(), List.of(), null)
+                        : new CursorPage<>(List.of(), null));
+            }
+            patientId = currentUser.getPatientId();
+        }
+        try {
+            if (patientId == null) {
+                return ResponseEntity.ok(compact
+                        ? appointmentService.findCompactPage(null, cursor, size)
+                        : appointmentService.findPage(null, cursor, size));
+            }
+            if (ifNoneMatch != null) {
+                Optional<AppointmentListVersion> current = appointmentService.findListVersion(patientId);
+                if (current.isPresent()) {
+                    String etag = ETags.appointments(patientId, current.get());
+                    if (ETags.matches(ifNoneMatch, etag)) {
+                        return ETags.notModified(etag);
+                    }
+                }
+            }
+            Long owner = patientId;
+            Versioned<?> page = appointmentService.readVersioned(patientId, () -> compact
+                    ? appointmentService.findCompactPage(owner, cursor, size)
+                    : appointmentService.findPage(owner, cursor, size));
+            return page.version() == null
+                    ? ResponseEntity.ok(page.body())
+                    : ETags.ok(ETags.appointments(patientId, page.version()), page.body());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /*
+     * Эндпоинт инкрементальной синхронизации: создания и удаления записей после токена since.
+     * Администратор получает изменения всех записей, пользователь — только записей своего пациента.
+     * Первый запрос (без since) и запрос с устаревшим токеном получают снимок текущих записей с reset=true;
+     * дальше объём ответа зависит от числа изменений с прошлой синхронизации, а не от размера истории.
+     * Токен из ответа передаётся в since следующего запроса; при more=true следующую порцию можно запросить сразу.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(value = "since", required = false) String since,
+                                        @RequestParam(value = "size", defaultValue = "500") int size) {
+        MedicalUserDetails currentUser = getCurrentUser();
+        Long patientId = null;
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null) {
+                return ResponseEntity.ok(new AppointmentChanges(false, List.of(), null, false));
+            }
+            patientId = currentUser.getPatientId();
+        }
+        try {
+            return ResponseEntity.ok(changeLog.findChanges(patientId, since, size));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /*
+     * Эндпоинт для календарной выборки записей в интервале [from, to) (например, на день или неделю).
+     * Администратор может получить записи всех пациентов или указать patientId,
+     * обычный пользователь получает только записи своего пациента.
+     * Выборка выполняется по индексу в памяти, без обращения к базе данных; пока индекс строится при старте,
+     * возвращается 503 с Retry-After.
+     */
+    @GetMapping(params = {"from", "to"})
+    public ResponseEntity<?> getRange(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                      @RequestParam(value = "patientId", required = false) Long patientId) {
+        if (!from.isBefore(to) || Duration.between(from, to).compareTo(MAX_RANGE) > 0) {
+            return ResponseEntity.badRequest().body("Range must be positive and not longer than " + MAX_RANGE.toDays() + " days");
+        }
+        MedicalUserDetails currentUser = getCurrentUser();
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null) {
+                return ResponseEntity.ok(List.of());
+            }
+            if (patientId != null && !patientId.equals(currentUser.getPatientId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not allowed to view appointments of another patient");
+            }
+            patientId = currentUser.getPatientId();
         }
+        if (!calendarIndex.isLoaded()) {
+            return indexLoading();
+        }
+        return ResponseEntity.ok(calendarIndex.findRange(patientId, from, to));
+    }
+
+    /*
+     * Эндпоинт для поиска свободных слотов по дням в интервале дат [from, to] включительно.
+     * Занятость считается по всем записям, поэтому данные о пациентах в ответ не попадают.
+     * Занятость берётся из календарного индекса: пока он строится при старте, возвращается 503.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_DAYS) {
+            return ResponseEntity.badRequest().body("Range must not be empty and not longer than " + MAX_AVAILABILITY_DAYS + " days");
+        }
+        if (!calendarIndex.isLoaded()) {
+            return indexLoading();
+        }
+        return ResponseEntity.ok(availabilityService.findFreeSlots(from, to));
+    }
+
+    /*
+     * Эндпоинт для поиска ближайшего свободного слота, начинающегося не раньше after (по умолчанию — сейчас).
+     */
+    @GetMapping("/availability/next")
+    public ResponseEntity<?> getNextAvailable(@RequestParam(value = "after", required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after) {
+        if (!calendarIndex.isLoaded()) {
+            return indexLoading();
+        }
+        return availabilityService.findNextFreeSlot(after != null ? after : LocalDateTime.now())
+                .<ResponseEntity<?>>map(start -> ResponseEntity.ok(Map.of(
+                        "start", start,
+                        "end", start.plusMinutes(availabilityService.getSlotMinutes()))))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /*
+     * Эндпоинт для выгрузки всех записей в формате NDJSON (только для администраторов).
+     * Ответ пишется потоком по мере чтения из базы данных, поэтому память не зависит от размера таблицы.
+     * С параметром gzip=true ответ сжимается.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        if (!getCurrentUser().isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return NdjsonResponses.stream("appointments.ndjson", gzip, exportService::exportAppointments);
     }
 
 //    *//*
@@ -58,12 +246,18 @@ public class AppointmentController {
 //     * После сохранения возвращается сообщение об успешном создании записи.
 //     *//*
 
+    // Проверки и сохранение выполняются в одной пишущей транзакции на основной базе (не на реплике).
+    // Время записи должно совпадать с началом слота; занятый слот даёт 409 Conflict.
     @PostMapping
+    @Transactional
     public ResponseEntity<?> createAppointment(@RequestBody Appointment request) {
         // Проверяем, что в запросе указан пациент (через вложенный объект с заполненным id)
         if (request.getPatient() == null || request.getPatient().getId() == null) {
             return ResponseEntity.badRequest().body("Patient ID must be provided");
         }
+        if (request.getDateTime() == null || !availabilityService.isSlotStart(request.getDateTime())) {
+            return ResponseEntity.badRequest().body("Appointment time must be the start of a working slot");
+        }
 
         // Загружаем пациента из базы данных по id
         Optional<Patient> optionalPatient = patientRepository.findById(request.getPatient().getId());
@@ -73,26 +267,42 @@ public class AppointmentController {
         Patient patient = optionalPatient.get();
 
         // Получаем текущего аутентифицированного пользователя
-        User currentUser = getCurrentUser();
+        MedicalUserDetails currentUser = getCurrentUser();
 
         // Если текущий пользователь не является администратором,
         // то проверяем, что он создаёт запись только для себя (т.е. id пациента из запроса совпадает с id его связанного пациента)
-        if (!"ROLE_ADMIN".equals(currentUser.getRole())) {
-            if (currentUser.getPatient() == null || !currentUser.getPatient().getId().equals(patient.getId())) {
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null || !currentUser.getPatientId().equals(patient.getId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("You are not allowed to create appointment for another patient");
             }
         }
 
-        // Устанавливаем корректного пациента для записи
+        // Устанавливаем корректного пациента для записи; id и версия назначаются при сохранении
+        request.setId(null);
+        request.setVersion(null);
         request.setPatient(patient);
 
-        // Сохраняем запись
-        appointmentRepository.save(request);
+        // Резервируем слот до конца транзакции: параллельные запросы на тот же слот сразу получают отказ,
+        // запросы на другие слоты не ждут. Занятость уже сохранёнными записями проверяется по всему интервалу слота:
+        // записи не с начала слота (например, синтетические) тоже его занимают.
+        LocalDateTime slotEnd = request.getDateTime().plusMinutes(availabilityService.getSlotMinutes());
+        if (!slotReservations.tryReserve(request.getDateTime())
+                || appointmentRepository.existsInSlot(request.getDateTime(), slotEnd)) {
+            return slotTaken();
+        }
+
+        // Сохраняем запись, записываем её создание в журнал и меняем версию списка записей пациента (ETag списка).
+        // INSERT выполняется сразу, чтобы нарушение уникальности (слот занят другим экземпляром приложения)
+        // обработалось в handleDataIntegrityViolation, а не при фиксации транзакции.
+        appointmentRepository.saveAndFlush(request);
+        changeLog.recordCreated(request);
+        appointmentService.touchAppointments(patient.getId());
         return ResponseEntity.ok("Appointment created");
     }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<?> deleteAppointment(@PathVariable("id") Long id) {
         Optional<Appointment> appointmentOptional = appointmentRepository.findById(id);
         if (appointmentOptional.isEmpty()) {
@@ -100,35 +310,53 @@ public class AppointmentController {
         }
         Appointment appointment = appointmentOptional.get();
 
-        User currentUser = getCurrentUser();
+        MedicalUserDetails currentUser = getCurrentUser();
 
         // Если пользователь не администратор, проверяем, что он пытается удалить свою запись
-        if (!"ROLE_ADMIN".equals(currentUser.getRole())) {
-            if (currentUser.getPatient() == null ||
-                    !currentUser.getPatient().getId().equals(appointment.getPatient().getId())) {
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null ||
+                    !currentUser.getPatientId().equals(appointment.getPatient().getId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("You are not allowed to delete this appointment");
             }
         }
 
+        changeLog.recordDeleted(appointment);
         appointmentRepository.deleteById(id);
+        appointmentService.touchAppointments(appointment.getPatient().getId());
         return ResponseEntity.ok("Appointment deleted successfully");
     }
 
 
 
+    /*
+     * Нарушение уникальности времени записи означает, что слот заняли параллельно (например, другой экземпляр
+     * приложения); транзакция к этому моменту уже откачена. Остальные нарушения целостности не обрабатываются.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<?> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        if (ex.getMessage() != null && ex.getMessage().toLowerCase(Locale.ROOT).contains(SLOT_CONSTRAINT)) {
+            return slotTaken();
+        }
+        throw ex;
+    }
+
+    private static ResponseEntity<?> slotTaken() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Slot is already booked");
+    }
+
+    // Календарный индекс ещё строится при старте: пустой ответ выглядел бы как отсутствие записей.
+    private static ResponseEntity<?> indexLoading() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Calendar index is loading, retry later");
+    }
+
     /*
      * Метод для получения текущего аутентифицированного пользователя.
-     * Извлекает имя пользователя из SecurityContext и ищет пользователя в базе через UserService.
+     * Данные пользователя (id, роль, id пациента) берутся из SecurityContext без повторного запроса к базе.
      */
-    private User getCurrentUser() {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String username;
-        if (principal instanceof UserDetails userDetails) {
-            username = userDetails.getUsername();
-        } else {
-            username = principal.toString();
-        }
-        return userService.findByUsername(username);
+    private MedicalUserDetails getCurrentUser() {
+        return userDetailService.currentUser();
     }
 }
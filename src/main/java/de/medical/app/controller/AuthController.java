@@ -1,9 +1,17 @@
 package de.medical.app.controller;
 
+import de.medical.app.dto.LoginRequest;
+import de.medical.app.dto.TokenResponse;
 import de.medical.app.dto.UserDto;
 import de.medical.app.model.User;
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.security.TokenService;
 import de.medical.app.service.UserService;
 import org.springframework.http.*;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,9 +27,17 @@ public class AuthController {
     // Сервис для работы с пользователями, включающий логику регистрации.
     private final UserService userService;
 
-    // Конструктор для внедрения зависимости UserService.
-    public AuthController(UserService userService) {
+    // Менеджер аутентификации для проверки логина и пароля при входе.
+    private final AuthenticationManager authenticationManager;
+
+    // Сервис выпуска токенов доступа.
+    private final TokenService tokenService;
+
+    // Конструктор для внедрения зависимостей.
+    public AuthController(UserService userService, AuthenticationManager authenticationManager, TokenService tokenService) {
         this.userService = userService;
+        this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
     }
 
     /*
@@ -48,4 +64,22 @@ public class AuthController {
         return ResponseEntity.ok("User registered successfully: " + newUser.getUsername());
     }
 
+    /*
+     * Эндпоинт для входа в систему.
+     * Проверяет логин и пароль (единственное место, где выполняется проверка BCrypt)
+     * и возвращает короткоживущий токен доступа для заголовка "Authorization: Bearer".
+     */
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(request.getUsername(), request.getPassword()));
+        } catch (AuthenticationException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+        }
+        MedicalUserDetails user = (MedicalUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(new TokenResponse(tokenService.issue(user), "Bearer", tokenService.getTtlSeconds()));
+    }
+
 }
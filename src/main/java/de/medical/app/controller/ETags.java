@@ -0,0 +1,57 @@
+package de.medical.app.controller;
+
+import de.medical.app.dto.AppointmentListVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/*
+ * ETags формирует слабые ETag по версиям сущностей для условных GET-запросов.
+ *
+ * ETag строится из столбцов version (а не из хэша тела), поэтому его можно вычислить без сериализации ответа,
+ * а для списка записей — вообще без чтения страницы. Ответы содержат данные конкретного пользователя,
+ * поэтому помечаются как private и no-cache: клиент хранит их у себя, но перед использованием перепроверяет.
+ */
+final class ETags {
+
+    static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ETags() {
+    }
+
+    // ETag пациента: меняется при каждом изменении строки пациента.
+    static String patient(Long id, Long version) {
+        return "W/\"p" + id + "." + version + "\"";
+    }
+
+    // ETag списка записей пациента: меняется при изменении пациента и при создании или удалении его записей.
+    static String appointments(Long patientId, AppointmentListVersion version) {
+        return "W/\"a" + patientId + "." + version.patientVersion() + "." + version.appointmentsVersion() + "\"";
+    }
+
+    /*
+     * Проверяет, совпадает ли ETag с одним из значений заголовка If-None-Match (слабое сравнение, RFC 9110).
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        ETag current = ETag.create(etag);
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ответ 304 Not Modified без тела.
+    static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+    }
+
+    static ResponseEntity<?> ok(String etag, Object body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CACHE_CONTROL).body(body);
+    }
+}
@@ -0,0 +1,40 @@
+package de.medical.app.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * NdjsonResponses формирует потоковые ответы в формате NDJSON для эндпоинтов экспорта.
+ * Тело ответа пишется по мере чтения данных, при необходимости со сжатием gzip.
+ */
+final class NdjsonResponses {
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private NdjsonResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> stream(String fileName, boolean gzip, StreamingResponseBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(APPLICATION_NDJSON);
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(gzip ? fileName + ".gz" : fileName)
+                .build());
+        if (!gzip) {
+            return new ResponseEntity<>(body, headers, 200);
+        }
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        StreamingResponseBody compressed = out -> {
+            // syncFlush: flush() генератора отдаёт клиенту уже сжатые строки, а не ждёт заполнения буфера deflater.
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024, true);
+            body.writeTo(gzipOut);
+            gzipOut.finish();
+        };
+        return new ResponseEntity<>(compressed, headers, 200);
+    }
+}
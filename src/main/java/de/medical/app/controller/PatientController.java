@@ -1,15 +1,15 @@
 package de.medical.app.controller;
 
 import de.medical.app.model.*;
-import de.medical.app.repository.*;
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.service.CustomUserDetailService;
+import de.medical.app.service.ExportService;
 import de.medical.app.service.PatientService;
-import de.medical.app.service.UserService;
-import jakarta.persistence.*;
 import lombok.extern.slf4j.*;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.*;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
 
@@ -24,36 +24,86 @@ import java.util.*;
 
 public class PatientController {
 
+    // Минимальная длина поискового запроса: однобуквенный префикс совпадает со слишком большой частью пациентов.
+    private static final int MIN_QUERY_LENGTH = 2;
+
     // Сервис для операций с пациентами (CRUD-операции).
     private final PatientService patientService;
 
-    // Сервис для работы с пользователями (необходим для получения текущего аутентифицированного пользователя).
-    private final UserService userService;
-    private final UserRepository userRepository;
-    private final AppointmentRepository appointmentRepository;
+    // Сервис для получения текущего аутентифицированного пользователя.
+    private final CustomUserDetailService userDetailService;
+
+    // Сервис потоковой выгрузки данных.
+    private final ExportService exportService;
 
 
     // Конструктор для внедрения зависимостей.
-    public PatientController(PatientService patientService, UserService userService, UserRepository userRepository, AppointmentRepository appointmentRepository) {
+    public PatientController(PatientService patientService, CustomUserDetailService userDetailService,
+                             ExportService exportService) {
         this.patientService = patientService;
-        this.userService = userService;
-        this.userRepository = userRepository;
-        this.appointmentRepository = appointmentRepository;
+        this.userDetailService = userDetailService;
+        this.exportService = exportService;
     }
 
     /*
      * Эндпоинт для получения данных пациентов.
-     * Администраторы могут получить список всех пациентов,
-     * а обычные пользователи — только данные, связанные с их учётной записью.
+     * Администраторы получают список всех пациентов постранично: краткие данные, отсортированные по id
+     * или по имени (sort=id|name), и курсор nextCursor, который передаётся в параметре cursor для следующей страницы.
+     * Обычные пользователи получают только данные, связанные с их учётной записью.
      */
     @GetMapping
-    public ResponseEntity<?> getAll(){
-        User currentUser = getCurrentUser();
-        if("ROLE_ADMIN".equals(currentUser.getRole())){
-            return ResponseEntity.ok(patientService.findAll());
+    public ResponseEntity<?> getAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "size", defaultValue = "50") int size,
+                                    @RequestParam(value = "sort", defaultValue = "id") String sort){
+        MedicalUserDetails currentUser = getCurrentUser();
+        if(currentUser.isAdmin()){
+            try {
+                PatientService.SortOrder order = PatientService.SortOrder.valueOf(sort.toUpperCase(Locale.ROOT));
+                return ResponseEntity.ok(patientService.findPage(order, cursor, size));
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body("Invalid sort or cursor");
+            }
+        } else if (currentUser.getPatientId() == null) {
+            return ResponseEntity.ok().build();
         } else {
-            return ResponseEntity.ok(currentUser.getPatient());
+            return ResponseEntity.ok(patientService.findById(currentUser.getPatientId()));
+        }
+    }
+
+    /*
+     * Эндпоинт для поиска пациентов по имени (только для администраторов).
+     * Поддерживается поиск по началу слова и с опечатками; результаты ранжируются и отдаются постранично.
+     * Пока поисковый индекс строится при старте, возвращается 503 с Retry-After.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "page", defaultValue = "0") int page,
+                                    @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (!getCurrentUser().isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You are not allowed to search patients");
+        }
+        if (query.strip().length() < MIN_QUERY_LENGTH) {
+            return ResponseEntity.badRequest().body("Query must contain at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        if (!patientService.isSearchReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("Search index is loading, retry later");
         }
+        return ResponseEntity.ok(patientService.search(query, page, size));
+    }
+
+    /*
+     * Эндпоинт для выгрузки всех пациентов в формате NDJSON (только для администраторов).
+     * Ответ пишется потоком по мере чтения из базы данных, поэтому память не зависит от размера таблицы.
+     * С параметром gzip=true ответ сжимается.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        if (!getCurrentUser().isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return NdjsonResponses.stream("patients.ndjson", gzip, exportService::exportPatients);
     }
 
     /*
@@ -77,60 +127,49 @@ public class PatientController {
 //    }
 
 
+/*
+ * Ответ содержит ETag по версии пациента; при совпадении с If-None-Match возвращается 304 без тела.
+ */
 @GetMapping("/{id}")
-public ResponseEntity<?> getById(@PathVariable("id") Long id) {
-    User currentUser = getCurrentUser();
+public ResponseEntity<?> getById(@PathVariable("id") Long id,
+                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    MedicalUserDetails currentUser = getCurrentUser();
     Patient patient = patientService.findById(id);
 
     if (patient == null) {
         return ResponseEntity.notFound().build();
     }
 
-    // Если текущий пользователь – администратор, разрешаем доступ
-    if ("ROLE_ADMIN".equals(currentUser.getRole())) {
-        return ResponseEntity.ok(patient);
+    // Доступ разрешён администратору и пользователю, связанному с запрашиваемым пациентом; иначе доступ запрещён
+    if (!currentUser.isAdmin() && !patient.getId().equals(currentUser.getPatientId())) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
-    // Если текущий пользователь является тем же пациентом, что запрашиваемый
-    if (patient.equals(currentUser.getPatient())) {
-        return ResponseEntity.ok(patient);
+    String etag = ETags.patient(patient.getId(), patient.getVersion());
+    if (ETags.matches(ifNoneMatch, etag)) {
+        return ETags.notModified(etag);
     }
-
-    // Иначе доступ запрещён
-    return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    return ETags.ok(etag, patient);
 }
 
 
 
     /*
      * Эндпоинт для удаления данных юзера по идентификатору.
+     * Вместе с пользователем удаляются связанный пациент и все его записи.
      * Удаление разрешено только администраторам.
      */
-//
-//
     @DeleteMapping
     public ResponseEntity<?> deleteByUserId(Long id){
-        User currentUser = getCurrentUser();
-
-        if("ROLE_ADMIN".equals(currentUser.getRole())){
-            Optional<User> user = userRepository.findById(id);
-            if(!user.isEmpty()){
-                userService.deleteUser(user.get());
-
-                List<Appointment> appointments = appointmentRepository.findAll().stream()
-                        .filter(appointment -> appointment.getPatient().getId().equals(user.get().getPatient().getId()))
-                        .toList();
-                appointmentRepository.deleteAll(appointments);
-
-                patientService.deleteById(user.get().getPatient().getId());
-
+        MedicalUserDetails currentUser = getCurrentUser();
 
+        if(currentUser.isAdmin()){
+            if(patientService.deleteUserCascade(id)){
                 return ResponseEntity.ok().build();
             }
             else {
                 return ResponseEntity.notFound().build();
             }
-
         }
         else {
             return ResponseEntity.status(403).body("You are not allowed to delete this patient");
@@ -139,63 +178,49 @@ public ResponseEntity<?> getById(@PathVariable("id") Long id) {
 
     /*
      * Эндпоинт для удаления данных пациента по идентификатору.
+     * Удаляются пациент, связанный пользователь и все записи пациента.
+     * С параметром async=true записи удаляются в фоне порциями (для пациентов с очень большой историей),
+     * а ответ 202 Accepted возвращается сразу после отзыва доступа пользователя;
+     * при заполненной очереди фоновых удалений возвращается 503 с Retry-After.
      * Удаление разрешено только администраторам.
      */
-
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deletePatientById(@PathVariable("id") Long id) {
+    public ResponseEntity<?> deletePatientById(@PathVariable("id") Long id,
+                                               @RequestParam(value = "async", defaultValue = "false") boolean async) {
         // Получаем текущего пользователя (например, из security context)
-        User currentUser = getCurrentUser();
+        MedicalUserDetails currentUser = getCurrentUser();
 
-        if ("ROLE_ADMIN".equals(currentUser.getRole())) {
-            // По id пациента получаем id пользователя, связанного с данным пациентом
-            Long userId;
+        if (!currentUser.isAdmin()) {
+            return ResponseEntity.status(403).body("You are not allowed to delete this patient");
+        }
+
+        if (async) {
             try {
-                userId = patientService.getUserIdByPatientId(id);
-            } catch (EntityNotFoundException ex) {
-                return ResponseEntity.notFound().build();
+                if (patientService.purgePatientAsync(id)) {
+                    return ResponseEntity.accepted().build();
+                }
+            } catch (TaskRejectedException ex) {
+                // Очередь фоновых удалений заполнена: доступ пользователя уже отозван, удаление можно повторить.
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "60")
+                        .body("Purge queue is full, retry later");
             }
+            return ResponseEntity.notFound().build();
+        }
 
-            // Ищем пользователя по полученному id
-            Optional<User> userOptional = userRepository.findById(userId);
-            if (userOptional.isPresent()) {
-                User user = userOptional.get();
-
-                // Удаляем пользователя
-                userService.deleteUser(user);
-
-                // Находим и удаляем все встречи, связанные с данным пациентом
-                List<Appointment> appointments = appointmentRepository.findAll().stream()
-                        .filter(appointment -> appointment.getPatient().getId().equals(id))
-                        .toList();
-                appointmentRepository.deleteAll(appointments);
-
-                // Удаляем пациента
-                patientService.deleteById(id);
-
-                return ResponseEntity.ok().build();
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } else {
-            return ResponseEntity.status(403).body("You are not allowed to delete this patient");
+        if (patientService.deletePatientCascade(id)) {
+            return ResponseEntity.ok().build();
         }
+        return ResponseEntity.notFound().build();
     }
 
 
 
     /*
      * Метод для получения текущего аутентифицированного пользователя.
-     * Извлекает информацию из SecurityContext и через UserService находит пользователя по имени.
+     * Данные пользователя (id, роль, id пациента) берутся из SecurityContext без повторного запроса к базе.
      */
-    private User getCurrentUser() {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String username;
-        if(principal instanceof UserDetails userDetails) {
-            username = userDetails.getUsername();
-        } else {
-            username = principal.toString();
-        }
-        return userService.findByUsername(username);
+    private MedicalUserDetails getCurrentUser() {
+        return userDetailService.currentUser();
     }
 }
@@ -0,0 +1,129 @@
+package de.medical.app.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+
+/*
+ * LocalReplicaSynchronizer имитирует репликацию для локальной проверки маршрутизации чтения
+ * (medical.datasource.replicas.local-sync.enabled=true, профиль replicas с несколькими базами H2 в памяти).
+ *
+ * При запуске на каждой реплике выполняются те же миграции Flyway, что и на основной базе.
+ * Затем каждые local-sync.interval содержимое таблиц TABLES копируется с основной базы на реплику:
+ * снимок основной базы читается в одной транзакции REPEATABLE READ, а на реплике данные заменяются
+ * в одной транзакции, поэтому читатели реплики видят либо старый, либо новый снимок целиком.
+ * Копирование полное, его стоимость растёт с объёмом данных — для больших наборов отставание реплик
+ * становится заметным, и ReplicaLagMonitor переводит чтения на основную базу.
+ *
+ * Только для локального тестирования: в реальной среде реплики поддерживает сама СУБД.
+ */
+@Slf4j
+public class LocalReplicaSynchronizer {
+
+    // Таблицы в порядке внешних ключей: родительские раньше дочерних.
+    private static final List<String> TABLES = List.of("patient", "users", "appointment", "replication_heartbeat",
+            "appointment_change_counter", "appointment_change");
+    // Количество строк в одном пакете INSERT.
+    private static final int BATCH_SIZE = 1000;
+
+    private final DataSource primary;
+    private final List<String> replicaUrls;
+    private final String username;
+    private final String password;
+    private final String[] migrationLocations;
+    private final TaskScheduler scheduler;
+    private final Duration interval;
+
+    public LocalReplicaSynchronizer(DataSource primary, List<String> replicaUrls, String username, String password,
+                                    String[] migrationLocations, TaskScheduler scheduler, Duration interval) {
+        this.primary = primary;
+        this.replicaUrls = replicaUrls;
+        this.username = username;
+        this.password = password;
+        this.migrationLocations = migrationLocations;
+        this.scheduler = scheduler;
+        this.interval = interval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (String url : replicaUrls) {
+            // Отдельное соединение для записи: пулы реплик в приложении работают только на чтение.
+            DataSource replica = new DriverManagerDataSource(url, username, password);
+            Flyway.configure().dataSource(replica).locations(migrationLocations).load().migrate();
+            scheduler.scheduleWithFixedDelay(() -> sync(url, replica), interval);
+        }
+        log.info("Local replica sync started for {} replicas every {}", replicaUrls.size(), interval);
+    }
+
+    private void sync(String url, DataSource replica) {
+        long start = System.currentTimeMillis();
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection()) {
+            source.setAutoCommit(false);
+            source.setReadOnly(true);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            target.setAutoCommit(false);
+            try {
+                try (Statement delete = target.createStatement()) {
+                    for (int i = TABLES.size() - 1; i >= 0; i--) {
+                        delete.executeUpdate("DELETE FROM " + TABLES.get(i));
+                    }
+                }
+                long rows = 0;
+                for (String table : TABLES) {
+                    rows += copy(source, target, table);
+                }
+                target.commit();
+                log.debug("Replica {} synchronized in {} ms ({} rows)", url, System.currentTimeMillis() - start, rows);
+            } catch (SQLException ex) {
+                target.rollback();
+                throw ex;
+            } finally {
+                source.rollback();
+            }
+        } catch (SQLException ex) {
+            log.warn("Failed to synchronize replica {}: {}", url, ex.getMessage());
+        }
+    }
+
+    private static long copy(Connection source, Connection target, String table) throws SQLException {
+        try (Statement select = source.createStatement(); ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+            ResultSetMetaData meta = rows.getMetaData();
+            int columns = meta.getColumnCount();
+            StringJoiner names = new StringJoiner(", ", "(", ")");
+            StringJoiner values = new StringJoiner(", ", "(", ")");
+            for (int i = 1; i <= columns; i++) {
+                names.add(meta.getColumnName(i));
+                values.add("?");
+            }
+            long copied = 0;
+            try (PreparedStatement insert = target.prepareStatement("INSERT INTO " + table + " " + names + " VALUES " + values)) {
+                while (rows.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        insert.setObject(i, rows.getObject(i));
+                    }
+                    insert.addBatch();
+                    if (++copied % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            return copied;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package de.medical.app.datasource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/*
+ * ReadOnlyCacheModeJpaDialect запрещает читающим транзакциям записывать в кэш второго уровня Hibernate.
+ *
+ * Читающие транзакции обслуживаются репликами, которые могут отставать от основной базы.
+ * Без этого ограничения устаревшая строка с реплики могла бы попасть в кэш сущностей или запросов
+ * уже после того, как запись на основной базе сбросила кэш, и отдаваться до истечения TTL.
+ * Чтение из кэша в таких транзакциях остаётся (CacheMode.GET); кэш наполняют пишущие транзакции.
+ */
+public class ReadOnlyCacheModeJpaDialect extends HibernateJpaDialect {
+
+    /*
+     * Данные транзакции вместе с режимом кэша, который нужно вернуть сессии после транзакции.
+     */
+    private record ReadOnlyTransactionData(Object delegate, Session session, CacheMode previousCacheMode) {
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object data = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return data;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        return new ReadOnlyTransactionData(data, session, previous);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData readOnly) {
+            readOnly.session().setCacheMode(readOnly.previousCacheMode());
+            super.cleanupTransaction(readOnly.delegate());
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+}
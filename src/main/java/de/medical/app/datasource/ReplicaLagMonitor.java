@@ -0,0 +1,76 @@
+package de.medical.app.datasource;
+
+import de.medical.app.datasource.ReplicaRoutingDataSource.Replica;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+ * ReplicaLagMonitor оценивает отставание реплик по таблице replication_heartbeat.
+ *
+ * Каждые check-interval монитор записывает текущее время на основной базе и читает последнюю метку с каждой реплики.
+ * Отставание — возраст метки, видимой на реплике; оно не меньше реального отставания и больше его
+ * не более чем на check-interval. Реплика получает читающие запросы, только если отвечает и отстаёт
+ * не больше max-lag; до первой проверки (и при ошибке проверки) все чтения идут на основную базу.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String WRITE_BEAT = "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String READ_BEAT = "SELECT beat_millis FROM replication_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final TaskScheduler scheduler;
+    private final Duration checkInterval;
+    private final long maxLagMillis;
+
+    public ReplicaLagMonitor(DataSource primary, ReplicaRoutingDataSource routingDataSource, TaskScheduler scheduler,
+                             Duration checkInterval, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.routingDataSource = routingDataSource;
+        this.scheduler = scheduler;
+        this.checkInterval = checkInterval;
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    /*
+     * Проверки начинаются после запуска приложения: к этому моменту миграции основной базы уже выполнены.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, checkInterval);
+    }
+
+    void check() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.update(WRITE_BEAT, now);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to write replication heartbeat: {}", ex.getMessage());
+        }
+        for (Replica replica : routingDataSource.replicas()) {
+            try {
+                Long beat = new JdbcTemplate(replica.dataSource()).queryForObject(READ_BEAT, Long.class);
+                long lag = beat == null ? Long.MAX_VALUE : Math.max(0, now - beat);
+                boolean healthy = lag <= maxLagMillis;
+                if (healthy != replica.healthy()) {
+                    log.info("Replica {} {} (lag {} ms, max {} ms)", replica.name(),
+                            healthy ? "receives reads" : "lags behind, reads go to primary", lag, maxLagMillis);
+                }
+                replica.update(healthy, lag);
+            } catch (DataAccessException ex) {
+                if (replica.healthy()) {
+                    log.warn("Replica {} check failed, reads go to primary: {}", replica.name(), ex.getMessage());
+                }
+                replica.update(false, replica.lagMillis());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.medical.app.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * ReplicaRoutingDataSource выдаёт соединения для читающих транзакций (@Transactional(readOnly = true)).
+ * Используется как readOnlyDataSource в LazyConnectionDataSourceProxy (см. ReplicaDataSourceConfig):
+ * прокси берёт соединение отсюда, если до первого запроса транзакция пометила соединение как read-only.
+ *
+ * Реплики перебираются по кругу; пропускаются реплики, которые ReplicaLagMonitor пометил как недоступные
+ * или отстающие больше допустимого. Если подходящих реплик нет или ни одна не выдала соединение,
+ * чтение выполняется на основной базе (метрика db.replica.fallback).
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    /*
+     * Реплика и её последнее известное состояние.
+     */
+    public static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;              // Реплика отвечает и отстаёт не больше допустимого
+        private volatile long lagMillis = Long.MAX_VALUE; // Последнее измеренное отставание (мс)
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public boolean healthy() {
+            return healthy;
+        }
+
+        public long lagMillis() {
+            return lagMillis;
+        }
+
+        void update(boolean healthy, long lagMillis) {
+            this.healthy = healthy;
+            this.lagMillis = lagMillis;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger(); // Счётчик для перебора реплик по кругу
+    private final Counter fallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(pool -> new Replica(pool.getPoolName(), pool)).toList();
+        this.fallbacks = Counter.builder("db.replica.fallback")
+                .description("Read-only connections served by the primary because no replica was available")
+                .register(meterRegistry);
+        for (Replica replica : replicas) {
+            TimeGauge.builder("db.replica.lag", replica, TimeUnit.MILLISECONDS,
+                            r -> r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis)
+                    .description("Age of the newest primary heartbeat visible on the replica")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 if the replica receives read-only traffic, 0 if reads fall back to the primary")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException ex) {
+                // До следующей проверки ReplicaLagMonitor реплика не используется.
+                replica.update(false, replica.lagMillis);
+                log.warn("Replica {} is unavailable, marked unhealthy: {}", replica.name, ex.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    /*
+     * Пулы реплик открываются с настроенными учётными данными, поэтому соединение с другими учётными данными
+     * выдаёт основная база.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+}
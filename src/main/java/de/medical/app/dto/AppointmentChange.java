@@ -0,0 +1,14 @@
+package de.medical.app.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ * AppointmentChange — одно изменение записи на приём в ответе GET /appointment/changes:
+ * создание (CREATED) или удаление (DELETED) записи appointmentId пациента patientId на время dateTime.
+ */
+public record AppointmentChange(Type type, Long appointmentId, Long patientId, LocalDateTime dateTime) {
+
+    public enum Type {
+        CREATED, DELETED
+    }
+}
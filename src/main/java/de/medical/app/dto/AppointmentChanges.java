@@ -0,0 +1,12 @@
+package de.medical.app.dto;
+
+import java.util.List;
+
+/*
+ * AppointmentChanges — ответ GET /appointment/changes.
+ * reset=true означает, что клиент должен отбросить свою копию записей: дальше приходит снимок текущих записей
+ * (изменения CREATED), возможно, на нескольких страницах. Токен token передаётся в параметре since
+ * следующего запроса; more=true означает, что следующую порцию можно запросить сразу.
+ */
+public record AppointmentChanges(boolean reset, List<AppointmentChange> changes, String token, boolean more) {
+}
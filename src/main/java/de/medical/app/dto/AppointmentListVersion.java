@@ -0,0 +1,8 @@
+package de.medical.app.dto;
+
+/*
+ * AppointmentListVersion — версия списка записей пациента для условного GET (ETag).
+ * Складывается из версии самого пациента (его данные входят в ответ) и агрегированной версии его записей.
+ */
+public record AppointmentListVersion(long patientVersion, long appointmentsVersion) {
+}
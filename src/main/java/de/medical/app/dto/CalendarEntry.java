@@ -0,0 +1,10 @@
+package de.medical.app.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ * CalendarEntry — облегчённое представление записи на приём для календарных выборок.
+ * Содержит только идентификатор записи, идентификатор пациента и время приёма.
+ */
+public record CalendarEntry(Long id, Long patientId, LocalDateTime dateTime) {
+}
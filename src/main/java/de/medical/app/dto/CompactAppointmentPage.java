@@ -0,0 +1,11 @@
+package de.medical.app.dto;
+
+import java.util.List;
+
+/*
+ * CompactAppointmentPage — страница записей в компактном виде.
+ * Записи ссылаются на пациента только по patientId, а данные каждого встречающегося пациента
+ * передаются один раз в списке patients. Курсор nextCursor совпадает по формату с CursorPage.
+ */
+public record CompactAppointmentPage(List<CalendarEntry> items, List<PatientSummary> patients, String nextCursor) {
+}
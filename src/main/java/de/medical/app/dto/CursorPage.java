@@ -0,0 +1,22 @@
+package de.medical.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/*
+ * Класс CursorPage представляет одну страницу результата keyset-пагинации.
+ * Помимо элементов страницы содержит курсор, по которому клиент запрашивает следующую страницу.
+ * Если nextCursor равен null, значит достигнут конец выборки.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    // Элементы текущей страницы.
+    private List<T> items;
+
+    // Курсор следующей страницы (null, если страниц больше нет).
+    private String nextCursor;
+}
@@ -0,0 +1,12 @@
+package de.medical.app.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/*
+ * DayAvailability — свободные слоты для записи на приём в течение одного дня.
+ * Каждый слот задаётся временем начала; длительность слота одинакова и задаётся настройкой medical.schedule.slot-length.
+ */
+public record DayAvailability(LocalDate date, List<LocalTime> freeSlots) {
+}
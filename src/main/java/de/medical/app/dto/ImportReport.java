@@ -0,0 +1,35 @@
+package de.medical.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/*
+ * Класс ImportReport содержит итоги массового импорта пользователей и пациентов.
+ */
+@Data
+@AllArgsConstructor
+public class ImportReport {
+
+    // Количество прочитанных строк (без заголовка и пустых строк).
+    private long received;
+
+    // Количество созданных пользователей (вместе с пациентами).
+    private long imported;
+
+    // Количество пропущенных строк: пользователь с таким именем уже существует или повторяется во входных данных.
+    private long skipped;
+
+    // Имена пропущенных пользователей (не больше первых 100).
+    private List<String> skippedUsernames;
+
+    // Количество строк, которые не удалось разобрать.
+    private long failed;
+
+    // Общее время импорта в миллисекундах.
+    private long elapsedMillis;
+
+    // Средняя скорость импорта (строк в секунду).
+    private long rowsPerSecond;
+}
@@ -0,0 +1,16 @@
+package de.medical.app.dto;
+
+import lombok.Data;
+
+/*
+ * Класс LoginRequest содержит учётные данные, передаваемые при входе в систему (POST /auth/login).
+ */
+@Data
+public class LoginRequest {
+
+    // Имя пользователя для входа в систему.
+    private String username;
+
+    // Пароль пользователя в виде открытого текста.
+    private String password;
+}
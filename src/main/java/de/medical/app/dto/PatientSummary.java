@@ -0,0 +1,9 @@
+package de.medical.app.dto;
+
+import java.time.LocalDate;
+
+/*
+ * PatientSummary — краткие данные пациента (без связей), используемые в результатах поиска.
+ */
+public record PatientSummary(Long id, String name, LocalDate birthDate) {
+}
@@ -0,0 +1,10 @@
+package de.medical.app.dto;
+
+import java.util.List;
+
+/*
+ * SearchPage — страница ранжированных результатов поиска.
+ * total — общее количество найденных элементов, page — номер страницы (с нуля), size — размер страницы.
+ */
+public record SearchPage<T>(List<T> items, int total, int page, int size) {
+}
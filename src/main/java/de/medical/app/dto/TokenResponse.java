@@ -0,0 +1,22 @@
+package de.medical.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/*
+ * Класс TokenResponse возвращается клиенту после успешного входа.
+ * Токен передаётся в последующих запросах в заголовке "Authorization: Bearer <accessToken>".
+ */
+@Data
+@AllArgsConstructor
+public class TokenResponse {
+
+    // Подписанный токен доступа.
+    private String accessToken;
+
+    // Тип токена (всегда "Bearer").
+    private String tokenType;
+
+    // Время жизни токена в секундах.
+    private long expiresIn;
+}
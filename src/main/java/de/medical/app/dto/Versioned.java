@@ -0,0 +1,8 @@
+package de.medical.app.dto;
+
+/*
+ * Versioned — данные вместе с версией, прочитанной в той же транзакции.
+ * version равна null, если версию определить не удалось (например, пациент уже удалён).
+ */
+public record Versioned<T>(T body, AppointmentListVersion version) {
+}
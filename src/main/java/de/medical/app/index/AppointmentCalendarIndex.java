@@ -0,0 +1,470 @@
+package de.medical.app.index;
+
+import de.medical.app.dto.CalendarEntry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+/*
+ * AppointmentCalendarIndex — индекс записей на приём в памяти для календарных выборок по диапазону времени.
+ *
+ * Записи хранятся в отсортированных примитивных массивах (минута от начала эпохи, id записи, id пациента):
+ * - по пациенту: все записи пациента;
+ * - по дню: все записи за день (для выборок администратора).
+ * Массивы неизменяемы: при изменении создаётся новая копия одного массива (copy-on-write), поэтому
+ * чтение выполняется без блокировок двоичным поиском и не создаёт сущностей JPA.
+ *
+ * Индекс обновляется через AppointmentIndexListener после фиксации транзакции
+ * и полностью перестраивается из базы данных при старте приложения (CalendarIndexLoader).
+ * До окончания первой перестройки индекс пуст: читающие его эндпоинты проверяют isLoaded и отвечают 503.
+ */
+@Component
+public class AppointmentCalendarIndex {
+
+    /*
+     * Неизменяемый отсортированный по минуте набор записей.
+     */
+    static final class Slots {
+        static final Slots EMPTY = new Slots(new int[0], new long[0], new long[0]);
+
+        final int[] minutes;
+        final long[] ids;
+        final long[] patientIds;
+
+        // Последняя вычисленная битовая карта занятости и параметры сетки, для которых она вычислена.
+        // Набор неизменяем, поэтому результат действителен, пока набор не заменён новой копией.
+        private volatile Occupancy occupancy;
+
+        Slots(int[] minutes, long[] ids, long[] patientIds) {
+            this.minutes = minutes;
+            this.ids = ids;
+            this.patientIds = patientIds;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int indexOf(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Первая позиция, минута которой не меньше заданной.
+        int lowerBound(int minute) {
+            int lo = 0, hi = minutes.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minutes[mid] < minute) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        long occupancy(int firstMinute, int slotMinutes, int slotCount) {
+            if (minutes.length == 0) {
+                return 0;
+            }
+            Occupancy cached = occupancy;
+            if (cached != null && cached.matches(firstMinute, slotMinutes, slotCount)) {
+                return cached.bits();
+            }
+            long bits = 0;
+            int end = firstMinute + slotMinutes * slotCount;
+            for (int i = lowerBound(firstMinute); i < minutes.length && minutes[i] < end; i++) {
+                bits |= 1L << ((minutes[i] - firstMinute) / slotMinutes);
+            }
+            occupancy = new Occupancy(firstMinute, slotMinutes, slotCount, bits);
+            return bits;
+        }
+
+        Slots insert(int minute, long id, long patientId) {
+            int pos = lowerBound(minute + 1);
+            int n = size();
+            int[] m = new int[n + 1];
+            long[] i = new long[n + 1];
+            long[] p = new long[n + 1];
+            System.arraycopy(minutes, 0, m, 0, pos);
+            System.arraycopy(ids, 0, i, 0, pos);
+            System.arraycopy(patientIds, 0, p, 0, pos);
+            m[pos] = minute;
+            i[pos] = id;
+            p[pos] = patientId;
+            System.arraycopy(minutes, pos, m, pos + 1, n - pos);
+            System.arraycopy(ids, pos, i, pos + 1, n - pos);
+            System.arraycopy(patientIds, pos, p, pos + 1, n - pos);
+            return new Slots(m, i, p);
+        }
+
+        // Копия без записей пациента за один проход.
+        Slots withoutPatient(long patientId) {
+            return without(k -> patientIds[k] == patientId);
+        }
+
+        // Копия без записей с указанными id за один проход.
+        Slots withoutIds(Set<Long> removed) {
+            return without(k -> removed.contains(ids[k]));
+        }
+
+        private Slots without(IntPredicate removed) {
+            int n = size();
+            int[] m = new int[n];
+            long[] i = new long[n];
+            long[] p = new long[n];
+            int kept = 0;
+            for (int k = 0; k < n; k++) {
+                if (!removed.test(k)) {
+                    m[kept] = minutes[k];
+                    i[kept] = ids[k];
+                    p[kept] = patientIds[k];
+                    kept++;
+                }
+            }
+            if (kept == n) {
+                return this;
+            }
+            return kept == 0 ? EMPTY : new Slots(Arrays.copyOf(m, kept), Arrays.copyOf(i, kept), Arrays.copyOf(p, kept));
+        }
+
+        Slots remove(int pos) {
+            int n = size();
+            if (n == 1) {
+                return EMPTY;
+            }
+            int[] m = new int[n - 1];
+            long[] i = new long[n - 1];
+            long[] p = new long[n - 1];
+            System.arraycopy(minutes, 0, m, 0, pos);
+            System.arraycopy(ids, 0, i, 0, pos);
+            System.arraycopy(patientIds, 0, p, 0, pos);
+            System.arraycopy(minutes, pos + 1, m, pos, n - pos - 1);
+            System.arraycopy(ids, pos + 1, i, pos, n - pos - 1);
+            System.arraycopy(patientIds, pos + 1, p, pos, n - pos - 1);
+            return new Slots(m, i, p);
+        }
+    }
+
+    private record Occupancy(int firstMinute, int slotMinutes, int slotCount, long bits) {
+        boolean matches(int firstMinute, int slotMinutes, int slotCount) {
+            return this.firstMinute == firstMinute && this.slotMinutes == slotMinutes && this.slotCount == slotCount;
+        }
+    }
+
+    /*
+     * Состояние индекса: записи по пациентам и по дням (номер дня от начала эпохи).
+     */
+    private record State(Map<Long, Slots> byPatient, Map<Integer, Slots> byDay) {
+    }
+
+    private enum Kind { ADD, REMOVE, REMOVE_PATIENT, REMOVE_IDS }
+
+    // Операция изменения, накопленная во время перестройки индекса (для REMOVE_PATIENT и REMOVE_IDS id и minute
+    // не используются, ids заполняется только для REMOVE_IDS).
+    private record Change(Kind kind, long id, long patientId, int minute, Set<Long> ids) {
+    }
+
+    private volatile State state = new State(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+    // Изменения выполняются под одной блокировкой: они редки по сравнению с чтением.
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Журнал изменений во время перестройки (null, если перестройка не идёт).
+    private List<Change> rebuildJournal;
+
+    // Индекс хотя бы раз перестроен из базы данных.
+    private volatile boolean loaded;
+
+    /*
+     * Метод isLoaded возвращает true, если индекс уже построен из базы данных и по нему можно отвечать на запросы.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /*
+     * Метод findRange возвращает записи в полуинтервале [from, to), отсортированные по времени.
+     * Если patientId равен null, возвращаются записи всех пациентов.
+     */
+    public List<CalendarEntry> findRange(Long patientId, LocalDateTime from, LocalDateTime to) {
+        int fromMinute = toMinute(from);
+        int toMinute = toMinute(to);
+        List<CalendarEntry> result = new ArrayList<>();
+        State current = state;
+        if (patientId != null) {
+            collect(current.byPatient().getOrDefault(patientId, Slots.EMPTY), fromMinute, toMinute, result);
+        } else {
+            for (int day = Math.floorDiv(fromMinute, 1440); day <= Math.floorDiv(toMinute - 1, 1440); day++) {
+                collect(current.byDay().getOrDefault(day, Slots.EMPTY), fromMinute, toMinute, result);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Метод countRange возвращает число записей в полуинтервале [from, to) без создания объектов.
+     */
+    public int countRange(Long patientId, LocalDateTime from, LocalDateTime to) {
+        int fromMinute = toMinute(from);
+        int toMinute = toMinute(to);
+        State current = state;
+        if (patientId != null) {
+            Slots slots = current.byPatient().getOrDefault(patientId, Slots.EMPTY);
+            return slots.lowerBound(toMinute) - slots.lowerBound(fromMinute);
+        }
+        int count = 0;
+        for (int day = Math.floorDiv(fromMinute, 1440); day <= Math.floorDiv(toMinute - 1, 1440); day++) {
+            Slots slots = current.byDay().getOrDefault(day, Slots.EMPTY);
+            count += slots.lowerBound(toMinute) - slots.lowerBound(fromMinute);
+        }
+        return count;
+    }
+
+    /*
+     * Метод occupancy возвращает битовую карту занятости дня: бит i установлен, если в слоте
+     * [firstMinute + i * slotMinutes, firstMinute + (i + 1) * slotMinutes) начинается хотя бы одна запись.
+     * Поддерживается не более 64 слотов в день; результат кэшируется до изменения записей этого дня.
+     */
+    public long occupancy(LocalDateTime dayStart, int slotMinutes, int slotCount) {
+        int firstMinute = toMinute(dayStart);
+        return state.byDay().getOrDefault(Math.floorDiv(firstMinute, 1440), Slots.EMPTY)
+                .occupancy(firstMinute, slotMinutes, slotCount);
+    }
+
+    private static void collect(Slots slots, int fromMinute, int toMinute, List<CalendarEntry> result) {
+        for (int i = slots.lowerBound(fromMinute); i < slots.size() && slots.minutes[i] < toMinute; i++) {
+            result.add(new CalendarEntry(slots.ids[i], slots.patientIds[i], toDateTime(slots.minutes[i])));
+        }
+    }
+
+    /*
+     * Добавляет запись в индекс (после фиксации текущей транзакции, если она есть).
+     */
+    public void add(long id, long patientId, LocalDateTime dateTime) {
+        Change change = new Change(Kind.ADD, id, patientId, toMinute(dateTime), null);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /*
+     * Удаляет запись из индекса (после фиксации текущей транзакции, если она есть).
+     */
+    public void remove(long id, long patientId) {
+        Change change = new Change(Kind.REMOVE, id, patientId, 0, null);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /*
+     * Удаляет все записи пациента. Используется после массового удаления записей SQL-оператором,
+     * которое не вызывает обработчики жизненного цикла сущностей.
+     * Во время перестройки в журнал попадает одна операция удаления пациента, даже если его записей
+     * ещё нет в индексе: снимок базы мог прочитать их до удаления.
+     */
+    public void removePatient(long patientId) {
+        Change change = new Change(Kind.REMOVE_PATIENT, 0, patientId, 0, null);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /*
+     * Удаляет записи пациента с указанными id (после фиксации текущей транзакции, если она есть):
+     * по одной копии набора пациента и каждого затронутого дня. Используется при поэтапном удалении истории
+     * пациента, порции которой удаляются SQL-оператором без обработчиков жизненного цикла сущностей.
+     */
+    public void removeAll(long patientId, Collection<Long> ids) {
+        Change change = new Change(Kind.REMOVE_IDS, 0, patientId, 0, Set.copyOf(ids));
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /*
+     * Метод rebuild полностью перестраивает индекс по переданным записям, отсортированным по времени.
+     * Изменения, выполненные во время перестройки, применяются к новому состоянию перед его публикацией.
+     */
+    public void rebuild(Iterable<CalendarEntry> entries) {
+        writeLock.lock();
+        try {
+            rebuildJournal = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Map<Long, Builder> patients = new HashMap<>();
+        Map<Integer, Builder> days = new HashMap<>();
+        for (CalendarEntry entry : entries) {
+            int minute = toMinute(entry.dateTime());
+            patients.computeIfAbsent(entry.patientId(), k -> new Builder()).add(minute, entry.id(), entry.patientId());
+            days.computeIfAbsent(Math.floorDiv(minute, 1440), k -> new Builder()).add(minute, entry.id(), entry.patientId());
+        }
+        State rebuilt = new State(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        patients.forEach((key, builder) -> rebuilt.byPatient().put(key, builder.build()));
+        days.forEach((key, builder) -> rebuilt.byDay().put(key, builder.build()));
+
+        writeLock.lock();
+        try {
+            for (Change change : rebuildJournal) {
+                applyLocked(rebuilt, change);
+            }
+            rebuildJournal = null;
+            state = rebuilt;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(Change change) {
+        writeLock.lock();
+        try {
+            applyLocked(state, change);
+            journal(change);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void journal(Change change) {
+        if (rebuildJournal != null) {
+            rebuildJournal.add(change);
+        }
+    }
+
+    private static void applyLocked(State target, Change change) {
+        if (change.kind() == Kind.REMOVE_PATIENT) {
+            removePatientLocked(target, change.patientId());
+            return;
+        }
+        if (change.kind() == Kind.REMOVE_IDS) {
+            removeIdsLocked(target, change.patientId(), change.ids());
+            return;
+        }
+        Slots patientSlots = target.byPatient().getOrDefault(change.patientId(), Slots.EMPTY);
+        int pos = patientSlots.indexOf(change.id());
+        if (change.kind() == Kind.ADD) {
+            if (pos >= 0) {
+                // Запись уже есть (например, попала и в снимок базы, и в журнал) — сначала убираем старую позицию.
+                applyLocked(target, new Change(Kind.REMOVE, change.id(), change.patientId(), 0, null));
+                patientSlots = target.byPatient().getOrDefault(change.patientId(), Slots.EMPTY);
+            }
+            target.byPatient().put(change.patientId(), patientSlots.insert(change.minute(), change.id(), change.patientId()));
+            int day = Math.floorDiv(change.minute(), 1440);
+            target.byDay().put(day, target.byDay().getOrDefault(day, Slots.EMPTY)
+                    .insert(change.minute(), change.id(), change.patientId()));
+            return;
+        }
+        if (pos < 0) {
+            return;
+        }
+        int minute = patientSlots.minutes[pos];
+        putOrRemove(target.byPatient(), change.patientId(), patientSlots.remove(pos));
+        int day = Math.floorDiv(minute, 1440);
+        Slots daySlots = target.byDay().getOrDefault(day, Slots.EMPTY);
+        for (int i = daySlots.lowerBound(minute); i < daySlots.size() && daySlots.minutes[i] == minute; i++) {
+            if (daySlots.ids[i] == change.id()) {
+                putOrRemove(target.byDay(), day, daySlots.remove(i));
+                break;
+            }
+        }
+    }
+
+    // Убирает набор пациента и его записи из каждого затронутого дня: по одной копии на день.
+    private static void removePatientLocked(State target, long patientId) {
+        Slots removed = target.byPatient().remove(patientId);
+        if (removed == null) {
+            return;
+        }
+        // Минуты отсортированы, поэтому записи одного дня идут подряд.
+        int previousDay = Integer.MIN_VALUE;
+        for (int minute : removed.minutes) {
+            int day = Math.floorDiv(minute, 1440);
+            if (day != previousDay) {
+                previousDay = day;
+                Slots daySlots = target.byDay().get(day);
+                if (daySlots != null) {
+                    putOrRemove(target.byDay(), day, daySlots.withoutPatient(patientId));
+                }
+            }
+        }
+    }
+
+    // Убирает записи с указанными id из набора пациента и из каждого дня, где они есть.
+    private static void removeIdsLocked(State target, long patientId, Set<Long> ids) {
+        Slots patientSlots = target.byPatient().get(patientId);
+        if (patientSlots == null) {
+            return;
+        }
+        Slots kept = patientSlots.withoutIds(ids);
+        if (kept == patientSlots) {
+            return;
+        }
+        putOrRemove(target.byPatient(), patientId, kept);
+        int previousDay = Integer.MIN_VALUE;
+        for (int k = 0; k < patientSlots.size(); k++) {
+            int day = Math.floorDiv(patientSlots.minutes[k], 1440);
+            if (day != previousDay && ids.contains(patientSlots.ids[k])) {
+                previousDay = day;
+                Slots daySlots = target.byDay().get(day);
+                if (daySlots != null) {
+                    putOrRemove(target.byDay(), day, daySlots.withoutIds(ids));
+                }
+            }
+        }
+    }
+
+    private static <K> void putOrRemove(Map<K, Slots> map, K key, Slots slots) {
+        if (slots.size() == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, slots);
+        }
+    }
+
+    static int toMinute(LocalDateTime dateTime) {
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime toDateTime(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /*
+     * Накопитель массивов при перестройке индекса.
+     */
+    private static final class Builder {
+        private int[] minutes = new int[4];
+        private long[] ids = new long[4];
+        private long[] patientIds = new long[4];
+        private int size;
+
+        void add(int minute, long id, long patientId) {
+            if (size == ids.length) {
+                minutes = Arrays.copyOf(minutes, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                patientIds = Arrays.copyOf(patientIds, size * 2);
+            }
+            minutes[size] = minute;
+            ids[size] = id;
+            patientIds[size] = patientId;
+            size++;
+        }
+
+        Slots build() {
+            return new Slots(Arrays.copyOf(minutes, size), Arrays.copyOf(ids, size),
+                    Arrays.copyOf(patientIds, size));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package de.medical.app.index;
+
+import de.medical.app.model.Appointment;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import java.time.LocalDateTime;
+
+/*
+ * AppointmentIndexListener — обработчик жизненного цикла сущности Appointment,
+ * который поддерживает AppointmentCalendarIndex в актуальном состоянии.
+ * Экземпляр создаётся Hibernate через контейнер бинов Spring, поэтому индекс внедряется через конструктор.
+ *
+ * Индекс хранит записи по пациентам, поэтому при смене пациента старую позицию нужно удалить явно:
+ * для этого при загрузке и сохранении сущность запоминает, под каким пациентом и временем она проиндексирована.
+ */
+public class AppointmentIndexListener {
+
+    /*
+     * Пациент и время, под которыми запись находится в индексе.
+     */
+    public record Indexed(Long patientId, LocalDateTime dateTime) {
+    }
+
+    private final AppointmentCalendarIndex calendarIndex;
+
+    public AppointmentIndexListener(AppointmentCalendarIndex calendarIndex) {
+        this.calendarIndex = calendarIndex;
+    }
+
+    @PostLoad
+    public void onLoad(Appointment appointment) {
+        appointment.setIndexed(indexed(appointment));
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Appointment appointment) {
+        Indexed previous = appointment.getIndexed();
+        Indexed current = indexed(appointment);
+        if (previous != null && previous.patientId() != null && !previous.patientId().equals(current.patientId())) {
+            calendarIndex.remove(appointment.getId(), previous.patientId());
+        }
+        if (current.patientId() != null) {
+            // Смена времени у того же пациента обрабатывается самим индексом: старая позиция ищется по id.
+            calendarIndex.add(appointment.getId(), current.patientId(), current.dateTime());
+        }
+        appointment.setIndexed(current);
+    }
+
+    @PostRemove
+    public void onRemove(Appointment appointment) {
+        Indexed previous = appointment.getIndexed();
+        Long patientId = previous != null ? previous.patientId()
+                : appointment.getPatient() != null ? appointment.getPatient().getId() : null;
+        if (patientId != null) {
+            calendarIndex.remove(appointment.getId(), patientId);
+        }
+    }
+
+    // Идентификатор пациента берётся без инициализации ленивого прокси.
+    private static Indexed indexed(Appointment appointment) {
+        Long patientId = appointment.getPatient() != null ? appointment.getPatient().getId() : null;
+        return new Indexed(patientId, appointment.getDateTime());
+    }
+}
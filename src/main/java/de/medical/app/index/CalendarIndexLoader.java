@@ -0,0 +1,45 @@
+package de.medical.app.index;
+
+import de.medical.app.dto.CalendarEntry;
+import de.medical.app.repository.AppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/*
+ * CalendarIndexLoader перестраивает AppointmentCalendarIndex из базы данных при старте приложения.
+ * Записи читаются потоком в виде лёгких проекций, без загрузки сущностей.
+ */
+@Component
+@Slf4j
+public class CalendarIndexLoader {
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentCalendarIndex calendarIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public CalendarIndexLoader(AppointmentRepository appointmentRepository, AppointmentCalendarIndex calendarIndex,
+                               PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.calendarIndex = calendarIndex;
+        // Транзакция не помечается как читающая: индекс строится по основной базе, а не по реплике,
+        // иначе изменения, ещё не дошедшие до реплики, не попали бы в индекс.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<CalendarEntry> entries = appointmentRepository.streamCalendarEntries()) {
+                calendarIndex.rebuild(entries::iterator);
+            }
+        });
+        log.info("Calendar index rebuilt in {} ms", System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,30 @@
+package de.medical.app.index;
+
+import de.medical.app.model.Patient;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/*
+ * PatientIndexListener — обработчик жизненного цикла сущности Patient,
+ * который поддерживает PatientSearchIndex в актуальном состоянии.
+ */
+public class PatientIndexListener {
+
+    private final PatientSearchIndex searchIndex;
+
+    public PatientIndexListener(PatientSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Patient patient) {
+        searchIndex.add(patient.getId(), patient.getName(), patient.getBirthDate());
+    }
+
+    @PostRemove
+    public void onRemove(Patient patient) {
+        searchIndex.remove(patient.getId());
+    }
+}
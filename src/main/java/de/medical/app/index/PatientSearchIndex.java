@@ -0,0 +1,407 @@
+package de.medical.app.index;
+
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.dto.SearchPage;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/*
+ * PatientSearchIndex — поисковый индекс имён пациентов в памяти.
+ *
+ * Имя разбивается на слова (токены), которые приводятся к нижнему регистру и очищаются от диакритики.
+ * - Словарь токенов хранится в отсортированной карте (токен -> id пациентов), поэтому поиск по префиксу —
+ *   это выборка диапазона ключей.
+ * - Для поиска с опечатками каждый токен словаря проиндексирован по триграммам; кандидаты, у которых
+ *   достаточно общих триграмм с запросом, проверяются расстоянием Левенштейна (1 опечатка для слов из 3–5 букв,
+ *   2 — для более длинных).
+ * Каждое слово запроса должно совпасть с каким-либо словом имени; результаты ранжируются по сумме оценок
+ * (точное совпадение > префикс > совпадение с опечаткой).
+ *
+ * Индекс обновляется через PatientIndexListener после фиксации транзакции
+ * и полностью перестраивается из базы данных при старте приложения (PatientSearchIndexLoader).
+ * До окончания первой перестройки индекс пуст: поиск проверяет isLoaded и отвечает 503.
+ */
+@Component
+public class PatientSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Оценки совпадения одного слова запроса со словом имени.
+    private static final int EXACT_SCORE = 100;
+    private static final int PREFIX_SCORE = 80;
+    private static final int FUZZY_SCORE = 60;
+
+    /*
+     * Пациент в индексе: данные для ответа и нормализованные слова имени.
+     * Сравнивается по ссылке: при изменении пациента создаётся новый объект.
+     */
+    private static final class Entry {
+        final PatientSummary patient;
+        final String[] tokens;
+
+        Entry(PatientSummary patient) {
+            this.patient = patient;
+            this.tokens = tokenize(patient.name());
+        }
+    }
+
+    /*
+     * Состояние индекса: пациенты по id, словарь токенов (токен -> пациенты) и триграммы токенов словаря.
+     */
+    private record State(Map<Long, Entry> entries,
+                         ConcurrentSkipListMap<String, Set<Entry>> tokens,
+                         Map<String, Set<String>> trigrams) {
+        State() {
+            this(new ConcurrentHashMap<>(), new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    // Изменение, накопленное во время перестройки индекса (patient == null означает удаление).
+    private record Change(long id, PatientSummary patient) {
+    }
+
+    private volatile State state = new State();
+
+    // Изменения выполняются под одной блокировкой: они редки по сравнению с поиском.
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Журнал изменений во время перестройки (null, если перестройка не идёт).
+    private List<Change> rebuildJournal;
+
+    // Индекс хотя бы раз перестроен из базы данных.
+    private volatile boolean loaded;
+
+    /*
+     * Метод isLoaded возвращает true, если индекс уже построен из базы данных и по нему можно искать.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /*
+     * Метод search ищет пациентов по имени и возвращает страницу ранжированных результатов.
+     * Каждое слово запроса сопоставляется со словами имени точно, по префиксу или с опечаткой.
+     * Сортируются только элементы до конца запрошенной страницы (ограниченная куча), остальные лишь подсчитываются.
+     */
+    public SearchPage<PatientSummary> search(String query, int page, int size) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0) {
+            return new SearchPage<>(List.of(), 0, page, size);
+        }
+        State current = state;
+
+        // Кандидаты берутся по самому длинному (обычно самому избирательному) слову запроса через словарь,
+        // остальные слова проверяются непосредственно по словам имени кандидата.
+        int driver = 0;
+        for (int i = 1; i < queryTokens.length; i++) {
+            if (queryTokens[i].length() > queryTokens[driver].length()) {
+                driver = i;
+            }
+        }
+        Map<String, Integer> driverMatches = matchTokens(current, queryTokens[driver]);
+
+        int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.ORDER.reversed());
+        int total = 0;
+        for (Map.Entry<String, Integer> match : driverMatches.entrySet()) {
+            for (Entry entry : current.tokens().getOrDefault(match.getKey(), Set.of())) {
+                // Пациент может попасть в кандидаты по нескольким словам имени — учитывается только лучшее из них.
+                if (!match.getKey().equals(bestToken(entry.tokens, driverMatches))) {
+                    continue;
+                }
+                int score = match.getValue();
+                for (int i = 0; i < queryTokens.length && score > 0; i++) {
+                    if (i != driver) {
+                        int best = bestScore(queryTokens[i], entry.tokens);
+                        score = best == 0 ? 0 : score + best;
+                    }
+                }
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                Hit hit = new Hit(entry.patient, score);
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (Hit.ORDER.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(Hit.ORDER);
+        List<PatientSummary> items = new ArrayList<>();
+        for (int i = (int) Math.min((long) page * size, ranked.size()); i < ranked.size(); i++) {
+            items.add(ranked.get(i).patient());
+        }
+        return new SearchPage<>(items, total, page, size);
+    }
+
+    private record Hit(PatientSummary patient, int score) {
+        static final Comparator<Hit> ORDER = Comparator.comparingInt(Hit::score).reversed()
+                .thenComparingInt(hit -> hit.patient().name().length())
+                .thenComparing(hit -> hit.patient().name())
+                .thenComparing(hit -> hit.patient().id());
+    }
+
+    public int size() {
+        return state.entries().size();
+    }
+
+    /*
+     * Подбирает токены словаря для одного слова запроса: точное совпадение, префикс и (для слов от 3 букв) опечатки.
+     */
+    private static Map<String, Integer> matchTokens(State current, String queryToken) {
+        Map<String, Integer> result = new HashMap<>();
+        for (String token : current.tokens().subMap(queryToken, queryToken + Character.MAX_VALUE).keySet()) {
+            result.put(token, score(queryToken, token));
+        }
+
+        int maxDistance = maxDistance(queryToken);
+        if (maxDistance == 0) {
+            return result;
+        }
+        String[] queryTrigrams = trigrams(queryToken);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String token : current.trigrams().getOrDefault(trigram, Set.of())) {
+                shared.merge(token, 1, Integer::sum);
+            }
+        }
+        // Каждая опечатка затрагивает не более трёх триграмм.
+        int minShared = Math.max(1, queryTrigrams.length - 3 * maxDistance);
+        shared.forEach((token, count) -> {
+            if (count >= minShared && !result.containsKey(token)) {
+                int score = score(queryToken, token);
+                if (score > 0) {
+                    result.put(token, score);
+                }
+            }
+        });
+        return result;
+    }
+
+    /*
+     * Оценка совпадения слова запроса со словом имени: точное совпадение, префикс, опечатка или 0.
+     */
+    private static int score(String queryToken, String token) {
+        if (token.startsWith(queryToken)) {
+            return token.length() == queryToken.length()
+                    ? EXACT_SCORE
+                    : PREFIX_SCORE - Math.min(20, token.length() - queryToken.length());
+        }
+        int maxDistance = maxDistance(queryToken);
+        if (maxDistance == 0) {
+            return 0;
+        }
+        // Опечатка допускается как во всём слове, так и в его начале (поиск по префиксу с опечаткой).
+        int distance = Math.min(
+                levenshtein(queryToken, token, maxDistance),
+                levenshtein(queryToken, token.substring(0, Math.min(token.length(), queryToken.length())), maxDistance));
+        return distance <= maxDistance ? FUZZY_SCORE - 15 * distance : 0;
+    }
+
+    private static int bestScore(String queryToken, String[] tokens) {
+        int best = 0;
+        for (String token : tokens) {
+            best = Math.max(best, score(queryToken, token));
+        }
+        return best;
+    }
+
+    // Допустимое число опечаток: 0 для слов короче 3 букв, 1 — до 5 букв, 2 — для более длинных.
+    private static int maxDistance(String queryToken) {
+        return queryToken.length() < 3 ? 0 : queryToken.length() <= 5 ? 1 : 2;
+    }
+
+    // Слово имени с наибольшей оценкой (первое из равных) или null, если ни одно слово не подходит.
+    private static String bestToken(String[] tokens, Map<String, Integer> matches) {
+        String best = null;
+        int bestScore = 0;
+        for (String token : tokens) {
+            int score = matches.getOrDefault(token, 0);
+            if (score > bestScore) {
+                best = token;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Добавляет или обновляет пациента в индексе (после фиксации текущей транзакции, если она есть).
+     */
+    public void add(long id, String name, LocalDate birthDate) {
+        Change change = new Change(id, new PatientSummary(id, name, birthDate));
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /*
+     * Удаляет пациента из индекса (после фиксации текущей транзакции, если она есть).
+     */
+    public void remove(long id) {
+        Change change = new Change(id, null);
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /*
+     * Метод rebuild полностью перестраивает индекс по переданным пациентам.
+     * Изменения, выполненные во время перестройки, применяются к новому состоянию перед его публикацией.
+     */
+    public void rebuild(Iterable<PatientSummary> patients) {
+        writeLock.lock();
+        try {
+            rebuildJournal = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        State rebuilt = new State();
+        for (PatientSummary patient : patients) {
+            applyLocked(rebuilt, new Change(patient.id(), patient));
+        }
+
+        writeLock.lock();
+        try {
+            for (Change change : rebuildJournal) {
+                applyLocked(rebuilt, change);
+            }
+            rebuildJournal = null;
+            state = rebuilt;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(Change change) {
+        writeLock.lock();
+        try {
+            applyLocked(state, change);
+            if (rebuildJournal != null) {
+                rebuildJournal.add(change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void applyLocked(State target, Change change) {
+        Entry previous = change.patient() == null
+                ? target.entries().remove(change.id())
+                : target.entries().put(change.id(), new Entry(change.patient()));
+        if (previous != null) {
+            for (String token : previous.tokens) {
+                Set<Entry> entries = target.tokens().get(token);
+                if (entries != null && entries.remove(previous) && entries.isEmpty()) {
+                    target.tokens().remove(token);
+                    for (String trigram : trigrams(token)) {
+                        Set<String> tokens = target.trigrams().get(trigram);
+                        if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+                            target.trigrams().remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+        if (change.patient() == null) {
+            return;
+        }
+        Entry entry = target.entries().get(change.id());
+        for (String token : entry.tokens) {
+            Set<Entry> entries = target.tokens().get(token);
+            if (entries == null) {
+                entries = ConcurrentHashMap.newKeySet();
+                target.tokens().put(token, entries);
+                for (String trigram : trigrams(token)) {
+                    target.trigrams().computeIfAbsent(trigram, k -> ConcurrentHashMap.newKeySet()).add(token);
+                }
+            }
+            entries.add(entry);
+        }
+    }
+
+    /*
+     * Разбивает строку на нормализованные слова: нижний регистр, без диакритики, без знаков препинания.
+     */
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace("ß", "ss");
+        if (!isAscii(normalized)) {
+            normalized = DIACRITICS.matcher(Normalizer.normalize(normalized, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Триграммы слова с границами ("^" в начале, "$" в конце).
+    private static String[] trigrams(String token) {
+        String padded = "^" + token + "$";
+        String[] result = new String[padded.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = padded.substring(i, i + 3);
+        }
+        return result;
+    }
+
+    /*
+     * Расстояние Левенштейна с отсечением: если оно больше max, возвращается max + 1.
+     */
+    private static int levenshtein(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,45 @@
+package de.medical.app.index;
+
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/*
+ * PatientSearchIndexLoader перестраивает PatientSearchIndex из базы данных при старте приложения.
+ * Пациенты читаются потоком в виде лёгких проекций, без загрузки сущностей.
+ */
+@Component
+@Slf4j
+public class PatientSearchIndexLoader {
+
+    private final PatientRepository patientRepository;
+    private final PatientSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public PatientSearchIndexLoader(PatientRepository patientRepository, PatientSearchIndex searchIndex,
+                                    PlatformTransactionManager transactionManager) {
+        this.patientRepository = patientRepository;
+        this.searchIndex = searchIndex;
+        // Транзакция не помечается как читающая: индекс строится по основной базе, а не по реплике,
+        // иначе изменения, ещё не дошедшие до реплики, не попали бы в индекс.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<PatientSummary> patients = patientRepository.streamSummaries()) {
+                searchIndex.rebuild(patients::iterator);
+            }
+        });
+        log.info("Patient search index rebuilt in {} ms ({} patients)", System.currentTimeMillis() - start, searchIndex.size());
+    }
+}
@@ -0,0 +1,74 @@
+package de.medical.app.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * CountingAsyncAppender — асинхронный аппендер Logback, который считает потерянные события.
+ *
+ * Поток запроса только кладёт событие в ограниченную очередь; запись в консоль или файл выполняет фоновый поток.
+ * При neverBlock=true поток запроса никогда не ждёт: если очередь заполнена, событие отбрасывается.
+ * Кроме того, когда свободного места меньше discardingThreshold, отбрасываются события уровней TRACE/DEBUG/INFO.
+ *
+ * Счётчики хранятся по имени аппендера и переживают переконфигурацию Logback (scan),
+ * их публикует LoggingMetrics. Проверка заполненности очереди выполняется без блокировки,
+ * поэтому при гонке отдельные потерянные события могут не попасть в счётчик.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    /*
+     * Счётчики и текущий экземпляр аппендера с данным именем.
+     */
+    public static final class Stats {
+        private final LongAdder discarded = new LongAdder(); // Отброшены по discardingThreshold.
+        private final LongAdder dropped = new LongAdder();   // Отброшены из-за заполненной очереди.
+        private volatile CountingAsyncAppender appender;
+
+        public long discarded() {
+            return discarded.sum();
+        }
+
+        public long dropped() {
+            return dropped.sum();
+        }
+
+        public int queued() {
+            CountingAsyncAppender current = appender;
+            return current == null || !current.isStarted() ? 0 : current.getNumberOfElementsInQueue();
+        }
+    }
+
+    private Stats stats;
+
+    public static Map<String, Stats> stats() {
+        return STATS;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (isStarted()) {
+            stats = STATS.computeIfAbsent(getName(), name -> new Stats());
+            stats.appender = this;
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (isQueueBelowDiscardingThreshold() && isDiscardable(event)) {
+            stats.discarded.increment();
+            return;
+        }
+        if (isNeverBlock() && getRemainingCapacity() == 0) {
+            stats.dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,88 @@
+package de.medical.app.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * SamplingTurboFilter пропускает в лог только часть (в среднем 1 из rate) событий указанных логгеров
+ * уровня level и ниже, например SQL-операторов Hibernate (org.hibernate.SQL) или DEBUG-вывода.
+ * Решение принимается до создания события, поэтому отброшенные сообщения почти ничего не стоят.
+ * События выше level (например, WARN и ERROR) не затрагиваются.
+ *
+ * Пример:
+ *     <turboFilter class="de.medical.app.logging.SamplingTurboFilter">
+ *         <name>sql</name>
+ *         <logger>org.hibernate.SQL</logger>
+ *         <level>DEBUG</level>
+ *         <rate>100</rate>
+ *     </turboFilter>
+ * Количество отброшенных событий публикуется метрикой logging.events.sampled с тегом filter (см. LoggingMetrics).
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private static final Map<String, LongAdder> SAMPLED_OUT = new ConcurrentHashMap<>();
+
+    private final List<String> loggers = new ArrayList<>(); // Имена логгеров (вместе с дочерними).
+    private Level level = Level.DEBUG;                      // Максимальный уровень, к которому применяется выборка.
+    private int rate = 100;                                 // В лог попадает в среднем одно событие из rate.
+    private LongAdder sampledOut;
+
+    public static Map<String, LongAdder> sampledOut() {
+        return SAMPLED_OUT;
+    }
+
+    public void addLogger(String logger) {
+        loggers.add(logger.trim());
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.DEBUG);
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public void start() {
+        if (loggers.isEmpty() || rate < 1) {
+            addError("SamplingTurboFilter requires at least one <logger> and a positive <rate>");
+            return;
+        }
+        sampledOut = SAMPLED_OUT.computeIfAbsent(getName() == null ? "default" : getName(), name -> new LongAdder());
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Проверки вида isDebugEnabled() (format == null) не сэмплируются, иначе сообщение отбрасывалось бы дважды.
+        if (!isStarted() || format == null || rate == 1 || level.levelInt > this.level.levelInt
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel()) || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (ThreadLocalRandom.current().nextInt(rate) == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        sampledOut.increment();
+        return FilterReply.DENY;
+    }
+
+    private boolean matches(String name) {
+        for (String logger : loggers) {
+            if (name.startsWith(logger) && (name.length() == logger.length() || name.charAt(logger.length()) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package de.medical.app.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/*
+ * HibernateRequestCounter считает SQL-запросы и загруженные сущности в текущем потоке.
+ * Регистрируется в Hibernate как StatementInspector и Interceptor (см. MetricsConfig);
+ * RequestMetricsInterceptor сбрасывает счётчики в начале HTTP-запроса и публикует их в конце.
+ */
+public class HibernateRequestCounter implements StatementInspector, Interceptor {
+
+    /*
+     * Счётчики одного потока: [0] — SQL-запросы, [1] — загруженные сущности.
+     */
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTERS.get()[0]++;
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        COUNTERS.get()[1]++;
+        return false;
+    }
+
+    static void reset() {
+        long[] counters = COUNTERS.get();
+        counters[0] = 0;
+        counters[1] = 0;
+    }
+
+    static long queries() {
+        return COUNTERS.get()[0];
+    }
+
+    static long entitiesLoaded() {
+        return COUNTERS.get()[1];
+    }
+}
@@ -0,0 +1,46 @@
+package de.medical.app.metrics;
+
+import de.medical.app.logging.CountingAsyncAppender;
+import de.medical.app.logging.SamplingTurboFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * LoggingMetrics публикует состояние асинхронного логирования (профиль prod, см. logback-spring.xml):
+ * - logging.events.dropped{appender, reason} — события, потерянные из-за заполненной очереди (queue-full)
+ *   или отброшенные по порогу discardingThreshold (below-threshold);
+ * - logging.async.queue.size{appender} — текущее число событий в очереди;
+ * - logging.events.sampled{filter} — события, отброшенные выборкой SamplingTurboFilter.
+ * Logback настраивается до запуска контекста Spring, поэтому к моменту привязки метрик аппендеры уже созданы.
+ */
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CountingAsyncAppender.stats().forEach((appender, stats) -> {
+            FunctionCounter.builder("logging.events.dropped", stats, CountingAsyncAppender.Stats::dropped)
+                    .description("Log events lost because the async appender queue was full")
+                    .tag("appender", appender)
+                    .tag("reason", "queue-full")
+                    .register(registry);
+            FunctionCounter.builder("logging.events.dropped", stats, CountingAsyncAppender.Stats::discarded)
+                    .description("TRACE/DEBUG/INFO events discarded while the queue was above the discarding threshold")
+                    .tag("appender", appender)
+                    .tag("reason", "below-threshold")
+                    .register(registry);
+            Gauge.builder("logging.async.queue.size", stats, CountingAsyncAppender.Stats::queued)
+                    .description("Log events waiting in the async appender queue")
+                    .tag("appender", appender)
+                    .register(registry);
+        });
+        SamplingTurboFilter.sampledOut().forEach((filter, counter) ->
+                FunctionCounter.builder("logging.events.sampled", counter, LongAdder::sum)
+                        .description("Log events skipped by sampling")
+                        .tag("filter", filter)
+                        .register(registry));
+    }
+}
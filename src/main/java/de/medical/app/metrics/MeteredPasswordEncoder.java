@@ -0,0 +1,62 @@
+package de.medical.app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/*
+ * MeteredPasswordEncoder — BCryptPasswordEncoder, который измеряет время хэширования (encode)
+ * и проверки пароля (matches) в метрике security.password.hash с тегом operation.
+ * encode вызывается при регистрации (UserService) и импорте, matches — при входе по логину и паролю
+ * (DaoAuthenticationProvider с CustomUserDetailService).
+ *
+ * Если задан maxConcurrentHashes, одновременно выполняется не больше указанного числа хэширований, остальные ждут.
+ * Это нужно при обработке запросов в виртуальных потоках: BCrypt занимает процессор целиком, и без ограничения
+ * массовые входы или регистрации заняли бы все потоки-носители, задерживая лёгкие запросы.
+ * Поэтому ограничение должно быть меньше числа потоков-носителей (по умолчанию оно равно числу ядер).
+ */
+public class MeteredPasswordEncoder extends BCryptPasswordEncoder {
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Semaphore permits; // Ограничение числа одновременных хэширований (null — без ограничения).
+
+    public MeteredPasswordEncoder(MeterRegistry meterRegistry, int maxConcurrentHashes) {
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+        this.permits = maxConcurrentHashes > 0 ? new Semaphore(maxConcurrentHashes) : null;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return limited(() -> encodeTimer.record(() -> super.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return Boolean.TRUE.equals(limited(() -> matchesTimer.record(() -> super.matches(rawPassword, encodedPassword))));
+    }
+
+    private <T> T limited(Supplier<T> hashing) {
+        if (permits == null) {
+            return hashing.get();
+        }
+        permits.acquireUninterruptibly();
+        try {
+            return hashing.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("security.password.hash")
+                .description("Time spent in BCrypt hashing")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
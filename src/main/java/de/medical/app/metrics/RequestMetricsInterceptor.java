@@ -0,0 +1,64 @@
+package de.medical.app.metrics;
+
+import de.medical.app.security.MedicalUserDetails;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/*
+ * RequestMetricsInterceptor собирает метрики уровня запроса для эндпоинтов контроллеров:
+ * - запоминает роль пользователя в атрибуте запроса (по нему RoleTaggingObservationConvention
+ *   добавляет тег role к метрике http.server.requests);
+ * - публикует количество SQL-запросов и загруженных сущностей Hibernate за запрос
+ *   (hibernate.request.queries, hibernate.request.entities) с тегами uri, method и role.
+ * Потоковые ответы (StreamingResponseBody) пишутся в другом потоке, их запросы к базе здесь не учитываются.
+ */
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    // Атрибут запроса с ролью пользователя.
+    public static final String ROLE_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".role";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ROLE_ATTRIBUTE, currentRole());
+        HibernateRequestCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String role = String.valueOf(request.getAttribute(ROLE_ATTRIBUTE));
+        DistributionSummary.builder("hibernate.request.queries")
+                .description("SQL statements executed per HTTP request")
+                .tags("uri", uri, "method", request.getMethod(), "role", role)
+                .register(meterRegistry)
+                .record(HibernateRequestCounter.queries());
+        DistributionSummary.builder("hibernate.request.entities")
+                .description("Entities loaded by Hibernate per HTTP request")
+                .tags("uri", uri, "method", request.getMethod(), "role", role)
+                .register(meterRegistry)
+                .record(HibernateRequestCounter.entitiesLoaded());
+    }
+
+    // Роль текущего пользователя (ADMIN, USER) или anonymous.
+    private static String currentRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof MedicalUserDetails user) {
+            return user.isAdmin() ? "ADMIN" : "USER";
+        }
+        return "anonymous";
+    }
+}
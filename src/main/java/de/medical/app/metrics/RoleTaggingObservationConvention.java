@@ -0,0 +1,22 @@
+package de.medical.app.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/*
+ * RoleTaggingObservationConvention добавляет к метрике http.server.requests тег role
+ * (ADMIN, USER или anonymous), чтобы задержки можно было сравнивать по ролям.
+ * Роль берётся из атрибута запроса, который выставляет RequestMetricsInterceptor: к моменту
+ * завершения наблюдения контекст безопасности уже очищен.
+ */
+public class RoleTaggingObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Object role = context.getCarrier().getAttribute(RequestMetricsInterceptor.ROLE_ATTRIBUTE);
+        return super.getLowCardinalityKeyValues(context)
+                .and(KeyValue.of("role", role != null ? role.toString() : "none"));
+    }
+}
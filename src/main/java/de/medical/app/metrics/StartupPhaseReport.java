@@ -0,0 +1,102 @@
+package de.medical.app.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationContextInitializedEvent;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.metrics.StartupStep;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+/*
+ * StartupPhaseReport записывает моменты этапов запуска приложения и при medical.startup.report=true
+ * выводит в лог их длительность:
+ * - jvm — от старта JVM до запуска SpringApplication (загрузка классов, инициализация JVM);
+ * - environment — чтение конфигурации и профилей;
+ * - context — создание контекста и загрузка определений бинов;
+ * - beans — создание бинов (Flyway, Hibernate, репозитории, безопасность) и запуск веб-сервера;
+ * - refresh — завершение обновления контекста;
+ * - runners — ApplicationRunner (создание демонстрационных и синтетических данных).
+ * Дополнительно выводятся самые долгие создания бинов из BufferingApplicationStartup
+ * (длительность включает создание зависимостей бина). Полная шкала доступна в /actuator/startup.
+ *
+ * Слушатель регистрируется в MedicalApplication.main, так как первые события происходят до создания контекста.
+ */
+@Slf4j
+public class StartupPhaseReport implements ApplicationListener<ApplicationEvent> {
+
+    // Количество самых долгих созданий бинов в отчёте.
+    private static final int SLOWEST_BEANS = 10;
+
+    private final Map<String, Long> phaseEnds = new LinkedHashMap<>(); // Этап -> момент его завершения (мс)
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationStartingEvent) {
+            mark("jvm");
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            mark("environment");
+        } else if (event instanceof ApplicationContextInitializedEvent || event instanceof ApplicationPreparedEvent) {
+            mark("context");
+        } else if (event instanceof WebServerInitializedEvent) {
+            mark("beans");
+        } else if (event instanceof ContextRefreshedEvent || event instanceof ApplicationStartedEvent) {
+            mark("refresh");
+        } else if (event instanceof ApplicationReadyEvent ready) {
+            mark("runners");
+            if (ready.getApplicationContext().getEnvironment().getProperty("medical.startup.report", Boolean.class, false)) {
+                report(ready);
+            }
+        }
+    }
+
+    /*
+     * Запоминает конец этапа; повторные события (например, второй ContextRefreshedEvent) продлевают этап.
+     */
+    private synchronized void mark(String phase) {
+        phaseEnds.put(phase, System.currentTimeMillis());
+    }
+
+    private synchronized void report(ApplicationReadyEvent ready) {
+        long previous = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long jvmStart = previous;
+        StringBuilder report = new StringBuilder("Startup phases:");
+        for (Map.Entry<String, Long> phase : phaseEnds.entrySet()) {
+            report.append(String.format("%n  %-12s %6d ms", phase.getKey(), phase.getValue() - previous));
+            previous = phase.getValue();
+        }
+        report.append(String.format("%n  %-12s %6d ms", "total", previous - jvmStart));
+
+        if (ready.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup) {
+            report.append(String.format("%nSlowest bean instantiations (including dependencies):"));
+            startup.getBufferedTimeline().getEvents().stream()
+                    .filter(timelineEvent -> "spring.beans.instantiate".equals(timelineEvent.getStartupStep().getName()))
+                    .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                    .limit(SLOWEST_BEANS)
+                    .forEach(timelineEvent -> report.append(String.format("%n  %6d ms  %s",
+                            timelineEvent.getDuration().toMillis(), beanName(timelineEvent.getStartupStep()))));
+        }
+        log.info(report.toString());
+    }
+
+    private static String beanName(StartupStep step) {
+        return StreamSupport.stream(step.getTags().spliterator(), false)
+                .filter(tag -> "beanName".equals(tag.getKey()))
+                .map(StartupStep.Tag::getValue)
+                .findFirst()
+                .orElse("?");
+    }
+}
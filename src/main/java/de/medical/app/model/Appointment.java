@@ -1,17 +1,27 @@
 package de.medical.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.medical.app.index.AppointmentIndexListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -20,6 +30,16 @@ import java.time.LocalDateTime;
  * Это сущность, которая сохраняется в базе данных и связывается с пациентом.
  */
 @Entity // Обозначает класс как JPA-сущность
+@EntityListeners(AppointmentIndexListener.class) // Поддерживает календарный индекс в памяти при сохранении и удалении
+// Индексы создаются миграциями Flyway (db/migration); здесь они перечислены для наглядности.
+@Table(indexes = {
+        // Индекс для постраничной выборки записей конкретного пациента по ключу (dateTime, id).
+        @Index(name = "idx_appointment_patient_date_time", columnList = "patient_id, dateTime, id"),
+        // Индекс для постраничной выборки всех записей (для администратора); покрывает проекцию CalendarEntry.
+        @Index(name = "idx_appointment_date_time", columnList = "dateTime, id, patient_id"),
+        // Уникальность времени записи: на один слот приходится не больше одной записи.
+        @Index(name = "uk_appointment_date_time", columnList = "dateTime", unique = true)
+})
 @Data // Lombok генерирует стандартные методы (геттеры, сеттеры, toString, equals, hashCode)
 @NoArgsConstructor // Генерирует конструктор без аргументов
 @AllArgsConstructor // Генерирует конструктор, принимающий все поля
@@ -27,13 +47,26 @@ import java.time.LocalDateTime;
 public class Appointment {
 
     @Id // Помечает поле как первичный ключ
-    @GeneratedValue(strategy = GenerationType.AUTO) // Автоматическая генерация идентификатора
+    // Значения из последовательности appointment_seq выделяются блоками по 50 (как у Patient).
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id; // Уникальный идентификатор записи
 
     @Column(nullable = false) // Обязательное поле для заполнения
     private LocalDateTime dateTime; // Дата и время проведения приема
 
-    @ManyToOne(fetch = FetchType.EAGER) // Определяет связь "многие-к-одному" с сущностью Patient; данные пациента загружаются сразу
+    @ManyToOne(fetch = FetchType.LAZY) // Определяет связь "многие-к-одному" с сущностью Patient; пациент загружается только по запросу (через граф сущностей)
     @JoinColumn(name = "patient_id") // Указывает имя столбца, используемого в качестве внешнего ключа для связи с Patient
     private Patient patient; // Пациент, к которому относится данная запись
+
+    @Version // Версия для оптимистической блокировки; новая запись определяется по version == null
+    @JsonIgnore // Не принимается из тела запроса и не отдаётся клиенту
+    private Long version;
+
+    // Пациент и время, под которыми запись сейчас находится в календарном индексе (заполняет AppointmentIndexListener).
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private AppointmentIndexListener.Indexed indexed;
 }
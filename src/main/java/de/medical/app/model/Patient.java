@@ -1,10 +1,16 @@
 package de.medical.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import de.medical.app.config.HibernateCacheConfig;
+import de.medical.app.index.PatientIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -19,10 +25,22 @@ import java.util.*;
 @NoArgsConstructor // Создает конструктор без параметров
 @AllArgsConstructor // Создает конструктор, принимающий все поля
 @Builder // Позволяет создавать объекты с использованием паттерна "Строитель"
+// Индексы создаются миграциями Flyway (db/migration); здесь они перечислены для наглядности.
+@Table(indexes = {
+        // Индекс для постраничной выборки пациентов, отсортированных по имени (ключ (name, id)); покрывает проекцию PatientSummary.
+        @Index(name = "idx_patient_name_id", columnList = "name, id, birthDate")
+})
+@Cacheable // Пациенты хранятся в кэше второго уровня Hibernate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PATIENT_REGION)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Служебные поля ленивого прокси Hibernate не сериализуются
+@EntityListeners(PatientIndexListener.class) // Поддерживает поисковый индекс имён в памяти при сохранении и удалении
 public class Patient {
 
     @Id // Обозначает поле как первичный ключ
-    @GeneratedValue(strategy = GenerationType.AUTO) // Значение идентификатора генерируется автоматически
+    // Идентификатор берётся из последовательности блоками по 50 значений (pooled-оптимизатор Hibernate),
+    // что позволяет Hibernate объединять INSERT-операторы в пакеты JDBC.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id; // Уникальный идентификатор пациента
 
     @Column(nullable = false) // Обязательное поле, не допускающее значение null
@@ -31,5 +49,15 @@ public class Patient {
     @Column(nullable = false) // Обязательное поле для хранения даты рождения
     private LocalDate birthDate; // Дата рождения пациента
 
+    @Version // Увеличивается Hibernate при каждом изменении пациента; используется в ETag
+    @JsonIgnore // Версия передаётся клиенту в заголовке ETag, а не в теле ответа
+    private Long version;
+
+    // Версия списка записей пациента; увеличивается SQL-оператором при создании и удалении записей
+    // (AppointmentService.touchAppointments), поэтому Hibernate этот столбец только читает.
+    @Column(insertable = false, updatable = false)
+    @JsonIgnore
+    private long appointmentsVersion;
+
 
 }
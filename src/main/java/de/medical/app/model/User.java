@@ -1,6 +1,8 @@
 package de.medical.app.model;
 
 // Импортируем необходимые аннотации для работы с JPA и Lombok
+import de.medical.app.config.HibernateCacheConfig;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -9,11 +11,14 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /*
  * Класс User представляет пользователя системы.
@@ -22,6 +27,8 @@ import lombok.NoArgsConstructor;
  */
 @Entity // Указывает, что данный класс является сущностью для JPA
 @Table(name = "users") // Определяет таблицу "users" в базе данных для хранения пользователей
+@Cacheable // Пользователи хранятся в кэше второго уровня Hibernate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_REGION)
 @NoArgsConstructor // Генерирует конструктор без аргументов
 @AllArgsConstructor // Генерирует конструктор, принимающий все поля в качестве параметров
 @Data // Автоматически генерирует геттеры, сеттеры, toString, equals и hashCode методы
@@ -29,7 +36,9 @@ import lombok.NoArgsConstructor;
 public class User {
 
     @Id // Помечает поле как первичный ключ сущности
-    @GeneratedValue(strategy = GenerationType.AUTO) // Автоматически генерирует значение идентификатора
+    // Значения из последовательности users_seq выделяются блоками по 50 (как у Patient).
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id; // Уникальный идентификатор пользователя
 
     @Column(unique = true, nullable = false) // Определяет столбец как уникальный и обязательный для заполнения
@@ -41,7 +50,7 @@ public class User {
     @Column(nullable = false) // Поле обязательно для заполнения
     private String role; // Роль пользователя (например, "ADMIN", "USER")
 
-    @OneToOne(fetch = FetchType.EAGER) // Устанавливает связь один-к-одному с сущностью Patient; данные пациента загружаются вместе с пользователем
+    @OneToOne(fetch = FetchType.LAZY) // Устанавливает связь один-к-одному с сущностью Patient; данные пациента загружаются только при обращении к ним
     @JoinColumn(name = "patient_id") // Указывает имя столбца внешнего ключа, связывающего с таблицей пациентов
     private Patient patient; // Связанный пациент, если пользователь представляет пациента
 
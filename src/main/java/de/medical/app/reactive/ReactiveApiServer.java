@@ -0,0 +1,79 @@
+package de.medical.app.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.security.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/*
+ * ReactiveApiServer — отдельный HTTP-сервер Reactor Netty с реактивным API чтения (medical.reactive.enabled=true).
+ *
+ * Основное приложение работает на Spring MVC (Tomcat, поток на запрос), а WebFlux в одном контексте с ним
+ * не обслуживает запросы, поэтому реактивный стек поднимается на своём порту (medical.reactive.port)
+ * из функциональных эндпоинтов WebFlux. Пути, параметры, правила доступа и JSON ответов совпадают с MVC-стеком;
+ * запросы обрабатываются несколькими потоками event loop Netty, ожидание базы данных потоков не занимает.
+ */
+@Slf4j
+public class ReactiveApiServer implements SmartLifecycle {
+
+    private final WebServer webServer;
+    private volatile boolean running;
+
+    public ReactiveApiServer(ReactiveAppointmentHandler appointments, ReactivePatientHandler patients,
+                             TokenService tokenService, ObjectMapper objectMapper, int port) {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/appointment/export", appointments::export)
+                .GET("/appointment", appointments::getAll)
+                .GET("/patients/export", patients::export)
+                .GET("/patients/{id}", patients::getById)
+                .GET("/patients", patients::getAll)
+                .build();
+        // JSON формируется тем же ObjectMapper, что и в MVC-стеке.
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .webFilter(new ReactiveTokenFilter(tokenService))
+                .build();
+
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory(port);
+        Compression compression = new Compression();
+        compression.setEnabled(true);
+        compression.setMimeTypes(new String[]{"application/json", "application/x-ndjson"});
+        factory.setCompression(compression);
+        this.webServer = factory.getWebServer(RouterFunctions.toHttpHandler(routes, strategies));
+    }
+
+    @Override
+    public void start() {
+        webServer.start();
+        running = true;
+        log.info("Reactive read API started on port {}", webServer.getPort());
+    }
+
+    @Override
+    public void stop() {
+        webServer.stop();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Фактический порт сервера (при medical.reactive.port=0 выбирается свободный порт).
+    public int getPort() {
+        return webServer.getPort();
+    }
+}
@@ -0,0 +1,146 @@
+package de.medical.app.reactive;
+
+import de.medical.app.dto.CalendarEntry;
+import de.medical.app.dto.CompactAppointmentPage;
+import de.medical.app.dto.CursorPage;
+import de.medical.app.model.Appointment;
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.service.AppointmentService;
+import de.medical.app.utils.CursorCodec;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * ReactiveAppointmentHandler — реактивные аналоги эндпоинтов чтения AppointmentController
+ * (GET /appointment и GET /appointment/export) с теми же правилами доступа и форматом ответов.
+ * Курсоры совместимы с MVC-стеком: страницу можно начать в одном стеке и продолжить в другом.
+ */
+public class ReactiveAppointmentHandler {
+
+    // Сколько строк выгрузки запрашивается у базы данных за раз; следующие запрашиваются по мере отправки клиенту.
+    static final int EXPORT_PREFETCH = 256;
+
+    private final ReactiveReadRepository repository;
+
+    public ReactiveAppointmentHandler(ReactiveReadRepository repository) {
+        this.repository = repository;
+    }
+
+    // Значения ключа (dateTime, id) из курсора.
+    private record Key(LocalDateTime dateTime, Long id) {
+    }
+
+    /*
+     * Страница записей: администратор получает записи всех пациентов, пользователь — только записи своего пациента.
+     * Поддерживаются параметры cursor, size и view=full|compact, как в AppointmentController.getAll.
+     */
+    public Mono<ServerResponse> getAll(ServerRequest request) {
+        String view = request.queryParam("view").orElse("full");
+        boolean compact = "compact".equalsIgnoreCase(view);
+        if (!compact && !"full".equalsIgnoreCase(view)) {
+            return ServerResponse.badRequest().bodyValue("Unknown view: " + view);
+        }
+        MedicalUserDetails currentUser = ReactiveTokenFilter.currentUser(request);
+        Long patientId = null;
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null) {
+                return ServerResponse.ok().bodyValue(compact
+                        ? new CompactAppointmentPage(List.of(), List.of(), null)
+                        : new CursorPage<>(List.of(), null));
+            }
+            patientId = currentUser.getPatientId();
+        }
+        int pageSize;
+        Key key;
+        try {
+            pageSize = Math.max(1, Math.min(Integer.parseInt(request.queryParam("size")
+                    .orElse(String.valueOf(AppointmentService.DEFAULT_PAGE_SIZE))), AppointmentService.MAX_PAGE_SIZE));
+            key = decode(request.queryParam("cursor").orElse(null));
+        } catch (IllegalArgumentException ex) {
+            return ServerResponse.badRequest().bodyValue(ex.getMessage());
+        }
+        return compact
+                ? ServerResponse.ok().body(compactPage(patientId, key, pageSize), CompactAppointmentPage.class)
+                : ServerResponse.ok().body(fullPage(patientId, key, pageSize), CursorPage.class);
+    }
+
+    /*
+     * Выгрузка всех записей в формате NDJSON (только для администраторов).
+     * Строки передаются клиенту по мере чтения: база данных не читает вперёд больше, чем EXPORT_PREFETCH строк
+     * сверх того, что уже принято сетью, поэтому медленный клиент замедляет чтение, а не накапливает строки в памяти.
+     * Сжатие выбирается по заголовку Accept-Encoding (см. ReactiveApiServer).
+     */
+    public Mono<ServerResponse> export(ServerRequest request) {
+        if (!ReactiveTokenFilter.currentUser(request).isAdmin()) {
+            return ServerResponse.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setContentDisposition(
+                        ContentDisposition.attachment().filename("appointments.ndjson").build()))
+                .body(repository.streamAppointments().limitRate(EXPORT_PREFETCH), Appointment.class);
+    }
+
+    private Mono<CursorPage<Appointment>> fullPage(Long patientId, Key key, int pageSize) {
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница.
+        return repository.findAppointmentPage(patientId, key == null ? null : key.dateTime(),
+                        key == null ? null : key.id(), pageSize + 1)
+                .collectList()
+                .map(rows -> {
+                    if (rows.size() <= pageSize) {
+                        return new CursorPage<>(rows, null);
+                    }
+                    List<Appointment> items = rows.subList(0, pageSize);
+                    Appointment last = items.get(pageSize - 1);
+                    return new CursorPage<>(items, CursorCodec.encode(last.getDateTime(), last.getId()));
+                });
+    }
+
+    private Mono<CompactAppointmentPage> compactPage(Long patientId, Key key, int pageSize) {
+        return repository.findEntryPage(patientId, key == null ? null : key.dateTime(),
+                        key == null ? null : key.id(), pageSize + 1)
+                .collectList()
+                .flatMap(rows -> {
+                    boolean more = rows.size() > pageSize;
+                    List<CalendarEntry> items = more ? rows.subList(0, pageSize) : rows;
+                    String nextCursor = more
+                            ? CursorCodec.encode(items.get(pageSize - 1).dateTime(), items.get(pageSize - 1).id())
+                            : null;
+                    Set<Long> patientIds = new LinkedHashSet<>();
+                    for (CalendarEntry row : items) {
+                        if (row.patientId() != null) {
+                            patientIds.add(row.patientId());
+                        }
+                    }
+                    if (patientIds.isEmpty()) {
+                        return Mono.just(new CompactAppointmentPage(items, List.of(), nextCursor));
+                    }
+                    return repository.findSummariesByIdIn(patientIds)
+                            .collectList()
+                            .map(patients -> new CompactAppointmentPage(items, patients, nextCursor));
+                });
+    }
+
+    // Разбирает курсор так же, как AppointmentService; возвращает null для первой страницы.
+    private static Key decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] key = CursorCodec.decode(cursor, 2);
+        try {
+            return new Key(LocalDateTime.parse(key[0]), Long.valueOf(key[1]));
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.medical.app.reactive;
+
+import de.medical.app.dto.CursorPage;
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.model.Patient;
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.service.PatientService;
+import de.medical.app.utils.CursorCodec;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * ReactivePatientHandler — реактивные аналоги эндпоинтов чтения PatientController
+ * (GET /patients, GET /patients/{id} и GET /patients/export) с теми же правилами доступа и форматом ответов.
+ */
+public class ReactivePatientHandler {
+
+    private final ReactiveReadRepository repository;
+
+    public ReactivePatientHandler(ReactiveReadRepository repository) {
+        this.repository = repository;
+    }
+
+    /*
+     * Администратор получает страницу кратких данных всех пациентов (sort=id|name, cursor, size),
+     * обычный пользователь — данные своего пациента.
+     */
+    public Mono<ServerResponse> getAll(ServerRequest request) {
+        MedicalUserDetails currentUser = ReactiveTokenFilter.currentUser(request);
+        if (!currentUser.isAdmin()) {
+            if (currentUser.getPatientId() == null) {
+                return ServerResponse.ok().build();
+            }
+            return repository.findPatientById(currentUser.getPatientId())
+                    .flatMap(patient -> ServerResponse.ok().bodyValue(patient))
+                    .switchIfEmpty(ServerResponse.ok().build());
+        }
+        Mono<CursorPage<PatientSummary>> page;
+        try {
+            PatientService.SortOrder sort = PatientService.SortOrder.valueOf(
+                    request.queryParam("sort").orElse("id").toUpperCase(Locale.ROOT));
+            int pageSize = Math.max(1, Math.min(Integer.parseInt(request.queryParam("size").orElse("50")),
+                    PatientService.MAX_PAGE_SIZE));
+            page = page(sort, request.queryParam("cursor").orElse(null), pageSize);
+        } catch (IllegalArgumentException ex) {
+            return ServerResponse.badRequest().bodyValue("Invalid sort or cursor");
+        }
+        return ServerResponse.ok().body(page, CursorPage.class);
+    }
+
+    /*
+     * Данные пациента по идентификатору: администратору — любого, пользователю — только своего.
+     */
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        Long id;
+        try {
+            id = Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException ex) {
+            return ServerResponse.badRequest().build();
+        }
+        MedicalUserDetails currentUser = ReactiveTokenFilter.currentUser(request);
+        return repository.findPatientById(id)
+                .flatMap(patient -> currentUser.isAdmin() || patient.getId().equals(currentUser.getPatientId())
+                        ? ServerResponse.ok().bodyValue(patient)
+                        : ServerResponse.status(HttpStatus.FORBIDDEN).build())
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    /*
+     * Выгрузка всех пациентов в формате NDJSON (только для администраторов), с тем же чтением по запросу,
+     * что и выгрузка записей (ReactiveAppointmentHandler.export).
+     */
+    public Mono<ServerResponse> export(ServerRequest request) {
+        if (!ReactiveTokenFilter.currentUser(request).isAdmin()) {
+            return ServerResponse.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setContentDisposition(
+                        ContentDisposition.attachment().filename("patients.ndjson").build()))
+                .body(repository.streamPatients().limitRate(ReactiveAppointmentHandler.EXPORT_PREFETCH), Patient.class);
+    }
+
+    // Страница в том же порядке и с тем же форматом курсора, что и PatientService.findPage.
+    private Mono<CursorPage<PatientSummary>> page(PatientService.SortOrder sort, String cursor, int pageSize) {
+        Flux<PatientSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = sort == PatientService.SortOrder.NAME
+                    ? repository.findSummaryPageByName(null, null, pageSize + 1)
+                    : repository.findSummaryPageById(null, pageSize + 1);
+        } else {
+            String[] key = CursorCodec.decode(cursor, sort == PatientService.SortOrder.NAME ? 2 : 1);
+            Long id = Long.valueOf(key[0]);
+            rows = sort == PatientService.SortOrder.NAME
+                    ? repository.findSummaryPageByName(key[1], id, pageSize + 1)
+                    : repository.findSummaryPageById(id, pageSize + 1);
+        }
+        return rows.collectList().map(list -> {
+            if (list.size() <= pageSize) {
+                return new CursorPage<>(list, null);
+            }
+            List<PatientSummary> items = list.subList(0, pageSize);
+            PatientSummary last = items.get(pageSize - 1);
+            return new CursorPage<>(items, sort == PatientService.SortOrder.NAME
+                    ? CursorCodec.encode(last.id(), last.name())
+                    : CursorCodec.encode(last.id()));
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package de.medical.app.reactive;
+
+import de.medical.app.dto.CalendarEntry;
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.model.Appointment;
+import de.medical.app.model.Patient;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/*
+ * ReactiveReadRepository читает пациентов и записи через R2DBC (DatabaseClient) без блокировки потоков.
+ *
+ * Запросы повторяют keyset-выборки AppointmentRepository и PatientRepository на SQL и используют те же индексы;
+ * строки преобразуются в те же классы Patient, Appointment и проекции, что отдаёт MVC-стек, поэтому JSON
+ * ответов совпадает. Сущности здесь — обычные объекты: Hibernate и кэш второго уровня не участвуют.
+ * Соединение берётся из пула только на время выполнения запроса и чтения его строк.
+ */
+public class ReactiveReadRepository implements AutoCloseable {
+
+    private static final String APPOINTMENT_COLUMNS = "SELECT a.id, a.date_time, p.id AS patient_id, p.name, p.birth_date ";
+    private static final String APPOINTMENT_FROM = APPOINTMENT_COLUMNS + "FROM appointment a LEFT JOIN patient p ON p.id = a.patient_id ";
+    private static final String AFTER_KEY = "(a.date_time > :dateTime OR (a.date_time = :dateTime AND a.id > :id)) ";
+    private static final String APPOINTMENT_ORDER = "ORDER BY a.date_time, a.id LIMIT :limit";
+
+    private static final String ENTRY_COLUMNS = "SELECT a.id, a.patient_id, a.date_time FROM appointment a ";
+
+    private static final String PATIENT_COLUMNS = "SELECT p.id, p.name, p.birth_date FROM patient p ";
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+
+    public ReactiveReadRepository(ConnectionPool pool) {
+        this.pool = pool;
+        this.client = DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void close() {
+        pool.dispose();
+    }
+
+    /*
+     * Страница записей по ключу (dateTime, id), с данными пациента; patientId == null — записи всех пациентов.
+     * afterDateTime и afterId — ключ последней записи предыдущей страницы (null для первой страницы).
+     */
+    public Flux<Appointment> findAppointmentPage(Long patientId, LocalDateTime afterDateTime, Long afterId, int limit) {
+        return keysetQuery(APPOINTMENT_FROM, patientId, afterDateTime, afterId, limit)
+                .map(ReactiveReadRepository::appointment)
+                .all();
+    }
+
+    /*
+     * Та же страница в виде CalendarEntry (без соединения с таблицей пациентов).
+     */
+    public Flux<CalendarEntry> findEntryPage(Long patientId, LocalDateTime afterDateTime, Long afterId, int limit) {
+        return keysetQuery(ENTRY_COLUMNS, patientId, afterDateTime, afterId, limit)
+                .map(row -> new CalendarEntry(row.get("id", Long.class), row.get("patient_id", Long.class),
+                        row.get("date_time", LocalDateTime.class)))
+                .all();
+    }
+
+    public Flux<PatientSummary> findSummariesByIdIn(Collection<Long> ids) {
+        return client.sql(PATIENT_COLUMNS + "WHERE p.id IN (:ids) ORDER BY p.id")
+                .bind("ids", ids)
+                .map(ReactiveReadRepository::summary)
+                .all();
+    }
+
+    /*
+     * Страница кратких данных пациентов по ключу id или (name, id); afterId == null — первая страница.
+     */
+    public Flux<PatientSummary> findSummaryPageById(Long afterId, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = afterId == null
+                ? client.sql(PATIENT_COLUMNS + "ORDER BY p.id LIMIT :limit")
+                : client.sql(PATIENT_COLUMNS + "WHERE p.id > :id ORDER BY p.id LIMIT :limit").bind("id", afterId);
+        return spec.bind("limit", limit).map(ReactiveReadRepository::summary).all();
+    }
+
+    public Flux<PatientSummary> findSummaryPageByName(String afterName, Long afterId, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = afterId == null
+                ? client.sql(PATIENT_COLUMNS + "ORDER BY p.name, p.id LIMIT :limit")
+                : client.sql(PATIENT_COLUMNS + "WHERE p.name > :name OR (p.name = :name AND p.id > :id) " +
+                        "ORDER BY p.name, p.id LIMIT :limit").bind("name", afterName).bind("id", afterId);
+        return spec.bind("limit", limit).map(ReactiveReadRepository::summary).all();
+    }
+
+    public Mono<Patient> findPatientById(Long id) {
+        return client.sql(PATIENT_COLUMNS + "WHERE p.id = :id")
+                .bind("id", id)
+                .map(ReactiveReadRepository::patient)
+                .one();
+    }
+
+    /*
+     * Все записи с пациентами в порядке id (как ExportService). Строки выдаются по запросу подписчика.
+     */
+    public Flux<Appointment> streamAppointments() {
+        return client.sql(APPOINTMENT_COLUMNS + "FROM appointment a JOIN patient p ON p.id = a.patient_id ORDER BY a.id")
+                .map(ReactiveReadRepository::appointment)
+                .all();
+    }
+
+    public Flux<Patient> streamPatients() {
+        return client.sql(PATIENT_COLUMNS + "ORDER BY p.id")
+                .map(ReactiveReadRepository::patient)
+                .all();
+    }
+
+    private DatabaseClient.GenericExecuteSpec keysetQuery(String columns, Long patientId, LocalDateTime afterDateTime,
+                                                          Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(columns);
+        if (patientId != null) {
+            sql.append("WHERE a.patient_id = :patientId ");
+        }
+        if (afterId != null) {
+            sql.append(patientId != null ? "AND " : "WHERE ").append(AFTER_KEY);
+        }
+        sql.append(APPOINTMENT_ORDER);
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql.toString()).bind("limit", limit);
+        if (patientId != null) {
+            spec = spec.bind("patientId", patientId);
+        }
+        if (afterId != null) {
+            spec = spec.bind("dateTime", afterDateTime).bind("id", afterId);
+        }
+        return spec;
+    }
+
+    private static Appointment appointment(Readable row) {
+        Long patientId = row.get("patient_id", Long.class);
+        return Appointment.builder()
+                .id(row.get("id", Long.class))
+                .dateTime(row.get("date_time", LocalDateTime.class))
+                .patient(patientId == null ? null : Patient.builder()
+                        .id(patientId)
+                        .name(row.get("name", String.class))
+                        .birthDate(row.get("birth_date", LocalDate.class))
+                        .build())
+                .build();
+    }
+
+    private static Patient patient(Readable row) {
+        return Patient.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .birthDate(row.get("birth_date", LocalDate.class))
+                .build();
+    }
+
+    private static PatientSummary summary(Readable row) {
+        return new PatientSummary(row.get("id", Long.class), row.get("name", String.class),
+                row.get("birth_date", LocalDate.class));
+    }
+}
@@ -0,0 +1,47 @@
+package de.medical.app.reactive;
+
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.security.TokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/*
+ * ReactiveTokenFilter аутентифицирует запросы реактивного API тем же токеном "Authorization: Bearer <token>",
+ * что и TokenAuthenticationFilter в MVC-стеке. Проверка токена — только вычисление подписи, без обращения к базе.
+ * Все эндпоинты реактивного API требуют аутентификации, поэтому запрос без действительного токена получает 401.
+ */
+public class ReactiveTokenFilter implements WebFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String USER_ATTRIBUTE = ReactiveTokenFilter.class.getName() + ".user";
+
+    private final TokenService tokenService;
+
+    public ReactiveTokenFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        MedicalUserDetails user = header != null && header.startsWith(BEARER_PREFIX)
+                ? tokenService.parse(header.substring(BEARER_PREFIX.length()).trim())
+                : null;
+        if (user == null) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return exchange.getResponse().setComplete();
+        }
+        exchange.getAttributes().put(USER_ATTRIBUTE, user);
+        return chain.filter(exchange);
+    }
+
+    // Пользователь текущего запроса (фильтр пропускает к обработчикам только аутентифицированные запросы).
+    static MedicalUserDetails currentUser(ServerRequest request) {
+        return (MedicalUserDetails) request.attribute(USER_ATTRIBUTE).orElseThrow();
+    }
+}
@@ -1,7 +1,21 @@
 package de.medical.app.repository;
 
+import de.medical.app.dto.CalendarEntry;
 import de.medical.app.model.Appointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 /*
  * AppointmentRepository – репозиторий для работы с сущностью Appointment.
@@ -11,7 +25,108 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * Параметры:
  * - Appointment: тип сущности, с которой будем работать.
  * - Long: тип идентификатора сущности (тип поля id).
+ *
+ * Запросы выполняются в читающих транзакциях (readOnly = true) и при включённых репликах уходят на реплику;
+ * вызванные внутри пишущей транзакции, они присоединяются к ней и выполняются на основной базе.
  */
+@Transactional(readOnly = true)
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    // Дополнительные методы запросов можно объявлять здесь, если понадобится специализированная логика выборки данных.
+
+    /*
+     * Keyset-пагинация по ключу (dateTime, id).
+     * Первая страница выбирается без курсора, последующие — строго после последней отданной записи.
+     * Запросы опираются на индексы (patient_id, date_time, id) и (date_time, id), поэтому стоимость
+     * страницы не зависит от её номера и от общего размера таблицы.
+     * Пациенты подгружаются тем же запросом через граф сущностей (связь patient ленивая).
+     */
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId ORDER BY a.dateTime, a.id")
+    List<Appointment> findFirstPageByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId " +
+            "AND (a.dateTime > :dateTime OR (a.dateTime = :dateTime AND a.id > :id)) ORDER BY a.dateTime, a.id")
+    List<Appointment> findPageByPatientIdAfter(@Param("patientId") Long patientId,
+                                               @Param("dateTime") LocalDateTime dateTime,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT a FROM Appointment a ORDER BY a.dateTime, a.id")
+    List<Appointment> findFirstPage(Limit limit);
+
+    @EntityGraph(attributePaths = "patient")
+    @Query("SELECT a FROM Appointment a " +
+            "WHERE a.dateTime > :dateTime OR (a.dateTime = :dateTime AND a.id > :id) ORDER BY a.dateTime, a.id")
+    List<Appointment> findPageAfter(@Param("dateTime") LocalDateTime dateTime,
+                                    @Param("id") Long id,
+                                    Limit limit);
+
+    /*
+     * Те же страницы в компактном виде: только (id, patientId, dateTime), без соединения с таблицей пациентов.
+     */
+    @Query("SELECT new de.medical.app.dto.CalendarEntry(a.id, a.patient.id, a.dateTime) FROM Appointment a " +
+            "WHERE a.patient.id = :patientId ORDER BY a.dateTime, a.id")
+    List<CalendarEntry> findEntriesFirstPageByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    @Query("SELECT new de.medical.app.dto.CalendarEntry(a.id, a.patient.id, a.dateTime) FROM Appointment a " +
+            "WHERE a.patient.id = :patientId " +
+            "AND (a.dateTime > :dateTime OR (a.dateTime = :dateTime AND a.id > :id)) ORDER BY a.dateTime, a.id")
+    List<CalendarEntry> findEntriesPageByPatientIdAfter(@Param("patientId") Long patientId,
+                                                        @Param("dateTime") LocalDateTime dateTime,
+                                                        @Param("id") Long id,
+                                                        Limit limit);
+
+    @Query("SELECT new de.medical.app.dto.CalendarEntry(a.id, a.patient.id, a.dateTime) FROM Appointment a " +
+            "ORDER BY a.dateTime, a.id")
+    List<CalendarEntry> findEntriesFirstPage(Limit limit);
+
+    @Query("SELECT new de.medical.app.dto.CalendarEntry(a.id, a.patient.id, a.dateTime) FROM Appointment a " +
+            "WHERE a.dateTime > :dateTime OR (a.dateTime = :dateTime AND a.id > :id) ORDER BY a.dateTime, a.id")
+    List<CalendarEntry> findEntriesPageAfter(@Param("dateTime") LocalDateTime dateTime,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    /*
+     * Возвращает очередную порцию идентификаторов записей пациента.
+     * Используется при поэтапном (chunked) удалении истории пациента.
+     */
+    @Query("SELECT a.id FROM Appointment a WHERE a.patient.id = :patientId ORDER BY a.id")
+    List<Long> findIdsByPatientId(@Param("patientId") Long patientId, Limit limit);
+
+    /*
+     * Проверяет, занят ли слот [from, to): занятым считается слот, внутри которого начинается хотя бы одна запись
+     * (так же считает занятость календарный индекс). Диапазон читается по уникальному индексу времени записи.
+     * Вызывается в транзакции создания записи, то есть на основной базе.
+     */
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a WHERE a.dateTime >= :from AND a.dateTime < :to")
+    boolean existsInSlot(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /*
+     * Удаляет все записи пациента одним SQL-оператором DELETE без загрузки сущностей в память.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Appointment a WHERE a.patient.id = :patientId")
+    int deleteByPatientId(@Param("patientId") Long patientId);
+
+    /*
+     * Потоковая выборка всех записей для экспорта.
+     * Строки читаются из курсора JDBC порциями по fetchSize и не накапливаются в памяти;
+     * поток должен использоваться внутри транзакции и обязательно закрываться.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient ORDER BY a.id")
+    Stream<Appointment> streamAll();
+
+    /*
+     * Потоковая выборка всех записей в виде лёгких проекций (без сущностей), отсортированных по времени.
+     * Используется для перестройки календарного индекса в памяти.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new de.medical.app.dto.CalendarEntry(a.id, a.patient.id, a.dateTime) FROM Appointment a ORDER BY a.dateTime, a.id")
+    Stream<CalendarEntry> streamCalendarEntries();
 }
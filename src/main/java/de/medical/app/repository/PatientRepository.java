@@ -1,7 +1,21 @@
 package de.medical.app.repository;
 
+import de.medical.app.dto.AppointmentListVersion;
+import de.medical.app.dto.PatientSummary;
 import de.medical.app.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /*
  * PatientRepository – репозиторий для работы с сущностью Patient.
@@ -10,8 +24,60 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * Параметры:
  * - Patient: сущность, которую репозиторий будет обрабатывать.
  * - Long: тип идентификатора сущности (поле id).
+ *
+ * Запросы выполняются в читающих транзакциях (readOnly = true) и при включённых репликах уходят на реплику;
+ * вызванные внутри пишущей транзакции, они присоединяются к ней и выполняются на основной базе.
  */
+@Transactional(readOnly = true)
 public interface PatientRepository extends JpaRepository<Patient, Long> {
-    // Здесь можно добавить дополнительные методы, если понадобятся специфичные запросы по пациентам.
-}
 
+    /*
+     * Keyset-пагинация кратких данных пациентов по ключу id или (name, id).
+     * Выбираются только нужные столбцы сразу в record-проекцию PatientSummary, без создания сущностей
+     * и без их регистрации в контексте персистентности.
+     */
+    @Query("SELECT new de.medical.app.dto.PatientSummary(p.id, p.name, p.birthDate) FROM Patient p ORDER BY p.id")
+    List<PatientSummary> findSummariesFirstPageById(Limit limit);
+
+    @Query("SELECT new de.medical.app.dto.PatientSummary(p.id, p.name, p.birthDate) FROM Patient p " +
+            "WHERE p.id > :id ORDER BY p.id")
+    List<PatientSummary> findSummariesPageByIdAfter(@Param("id") Long id, Limit limit);
+
+    @Query("SELECT new de.medical.app.dto.PatientSummary(p.id, p.name, p.birthDate) FROM Patient p ORDER BY p.name, p.id")
+    List<PatientSummary> findSummariesFirstPageByName(Limit limit);
+
+    @Query("SELECT new de.medical.app.dto.PatientSummary(p.id, p.name, p.birthDate) FROM Patient p " +
+            "WHERE p.name > :name OR (p.name = :name AND p.id > :id) ORDER BY p.name, p.id")
+    List<PatientSummary> findSummariesPageByNameAfter(@Param("name") String name, @Param("id") Long id, Limit limit);
+
+    /*
+     * Краткие данные пациентов по набору идентификаторов (для подгрузки пациентов к компактному списку записей).
+     */
+    @Query("SELECT new de.medical.app.dto.PatientSummary(p.id, p.name, p.birthDate) FROM Patient p WHERE p.id IN :ids ORDER BY p.id")
+    List<PatientSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Версия списка записей пациента для условного GET: одна выборка по первичному ключу.
+     */
+    @Query("SELECT new de.medical.app.dto.AppointmentListVersion(p.version, p.appointmentsVersion) FROM Patient p WHERE p.id = :id")
+    Optional<AppointmentListVersion> findAppointmentListVersion(@Param("id") Long id);
+
+    /*
+     * Потоковая выборка всех пациентов для экспорта.
+     * Строки читаются из курсора JDBC порциями по fetchSize и не накапливаются в памяти;
+     * поток должен использоваться внутри транзакции и обязательно закрываться.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Patient p ORDER BY p.id")
+    Stream<Patient> streamAll();
+
+    /*
+     * Потоковая выборка кратких данных всех пациентов для построения поискового индекса.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new de.medical.app.dto.PatientSummary(p.id, p.name, p.birthDate) FROM Patient p ORDER BY p.id")
+    Stream<PatientSummary> streamSummaries();
+}
@@ -1,8 +1,11 @@
 package de.medical.app.repository;
 
 import de.medical.app.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.*;
+import org.springframework.transaction.annotation.*;
 
 import java.util.*;
 
@@ -14,10 +17,16 @@ import java.util.*;
  * Параметры:
  * - User: сущность, с которой будем работать.
  * - Long: тип идентификатора сущности (поле id).
+ *
+ * Запросы выполняются в читающих транзакциях (readOnly = true) и при включённых репликах уходят на реплику;
+ * вызванные внутри пишущей транзакции, они присоединяются к ней и выполняются на основной базе.
  */
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
     // Метод для поиска пользователя по имени (username).
     // Spring Data JPA автоматически формирует SQL-запрос на основе имени метода.
+    // Результат кэшируется в кэше запросов Hibernate и сбрасывается при любом изменении таблицы users.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     User findByUsername(String username);
 
 
@@ -28,9 +37,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Optional, содержащий идентификатор пользователя, если он найден;
      * в противном случае возвращается пустой Optional
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true")) // Результат хранится в кэше запросов Hibernate
     @Query("SELECT u.id FROM User u WHERE u.patient.id = :patientId") // JPQL-запрос, выбирающий идентификатор пользователя по идентификатору пациента
     Optional<Long> findUserIdByPatientId(@Param("patientId") Long patientId); // Аннотация @Param связывает параметр метода с параметром запроса
 
+    /*
+     * Возвращает те имена из переданного набора, которые уже заняты (используется при массовом импорте).
+     */
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
 
+    /*
+     * Возвращает имя пользователя, связанного с пациентом (нужно для сброса кэша при удалении).
+     */
+    @Query("SELECT u.username FROM User u WHERE u.patient.id = :patientId")
+    Optional<String> findUsernameByPatientId(@Param("patientId") Long patientId);
+
+    /*
+     * Удаляет пользователя, связанного с пациентом, одним SQL-оператором DELETE.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.patient.id = :patientId")
+    int deleteByPatientId(@Param("patientId") Long patientId);
 
 }
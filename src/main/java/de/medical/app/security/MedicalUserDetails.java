@@ -0,0 +1,42 @@
+package de.medical.app.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+/*
+ * MedicalUserDetails — данные аутентифицированного пользователя, которые хранятся в SecurityContext.
+ * Помимо имени, пароля и роли содержит идентификатор пользователя и идентификатор связанного пациента,
+ * поэтому контроллерам не нужно повторно загружать пользователя из базы данных в каждом запросе.
+ */
+public class MedicalUserDetails extends User {
+
+    private final Long id;        // Идентификатор пользователя.
+    private final String role;    // Роль пользователя (например, "ROLE_ADMIN", "ROLE_USER").
+    private final Long patientId; // Идентификатор связанного пациента (null, если пациента нет).
+
+    public MedicalUserDetails(Long id, String username, String password, String role, Long patientId) {
+        super(username, password, Collections.singletonList(new SimpleGrantedAuthority(role)));
+        this.id = id;
+        this.role = role;
+        this.patientId = patientId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    // Проверяет, является ли пользователь администратором.
+    public boolean isAdmin() {
+        return "ROLE_ADMIN".equals(role);
+    }
+}
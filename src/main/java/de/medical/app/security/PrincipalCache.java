@@ -0,0 +1,92 @@
+package de.medical.app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/*
+ * PrincipalCache — ограниченный по размеру кэш данных пользователей с временем жизни записей (TTL).
+ * Используется CustomUserDetailService, чтобы не обращаться к базе данных при каждой аутентификации.
+ *
+ * В кэше хранятся неизменяемые снимки (CachedPrincipal), а не объекты UserDetails:
+ * Spring Security стирает пароль в UserDetails после аутентификации, поэтому для каждого запроса
+ * создаётся новый объект MedicalUserDetails.
+ */
+@Component
+public class PrincipalCache {
+
+    /*
+     * Неизменяемый снимок данных пользователя, достаточный для аутентификации и проверки прав.
+     */
+    public record CachedPrincipal(Long id, String username, String passwordHash, String role, Long patientId) {
+
+        public MedicalUserDetails toUserDetails() {
+            return new MedicalUserDetails(id, username, passwordHash, role, patientId);
+        }
+    }
+
+    private final Cache<String, CachedPrincipal> cache;
+
+    public PrincipalCache(@Value("${medical.security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${medical.security.principal-cache.ttl:5m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Попадания, промахи, вытеснения и размер публикуются как метрики cache.* с тегом cache=principals.
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    /*
+     * Возвращает снимок пользователя или null, если его нет в кэше.
+     * Загрузка из базы данных выполняется вызывающим кодом вне блокировок кэша.
+     */
+    public CachedPrincipal get(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    public void put(CachedPrincipal principal) {
+        cache.put(principal.username(), principal);
+    }
+
+    /*
+     * Удаляет пользователя из кэша. Если вызов выполняется внутри транзакции,
+     * запись удаляется повторно после её завершения, чтобы параллельный запрос
+     * не успел закэшировать ещё не удалённые данные.
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
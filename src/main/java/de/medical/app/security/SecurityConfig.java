@@ -2,10 +2,15 @@ package de.medical.app.security;
 
 // Импортируем наш кастомный сервис для загрузки деталей пользователя.
 import de.medical.app.service.CustomUserDetailService;
+import de.medical.app.metrics.MeteredPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 
 // Импорт аннотаций и классов Spring Framework и Spring Security.
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -13,6 +18,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /*
  * Аннотация @Configuration указывает, что этот класс содержит определения бинов,
@@ -30,18 +36,38 @@ public class SecurityConfig {
     // Сервис для загрузки деталей пользователя, реализующий UserDetailsService.
     private final CustomUserDetailService userDetailService;
 
-    // Конструктор для внедрения зависимости CustomUserDetailService.
-    public SecurityConfig(CustomUserDetailService userDetailService) {
+    // Сервис выпуска и проверки токенов доступа.
+    private final TokenService tokenService;
+
+    // Реестр метрик (время хэширования паролей).
+    private final MeterRegistry meterRegistry;
+
+    // Максимальное число одновременных хэширований BCrypt (0 — без ограничения).
+    private final int maxConcurrentHashes;
+
+    // Конструктор для внедрения зависимостей.
+    public SecurityConfig(CustomUserDetailService userDetailService, TokenService tokenService, MeterRegistry meterRegistry,
+                          @Value("${medical.security.password.max-concurrent-hashes:0}") int maxConcurrentHashes,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.userDetailService = userDetailService;
+        this.tokenService = tokenService;
+        this.meterRegistry = meterRegistry;
+        // В виртуальных потоках по умолчанию хэширование ограничивается половиной ядер (не меньше одного).
+        // Потоков-носителей столько же, сколько ядер, поэтому ограничение, равное числу ядер, позволило бы волне входов
+        // занять их все (см. MeteredPasswordEncoder).
+        this.maxConcurrentHashes = maxConcurrentHashes == 0 && virtualThreads
+                ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2)
+                : maxConcurrentHashes;
     }
 
     /*
      * Определяет бин BCryptPasswordEncoder, который используется для хэширования паролей.
      * BCrypt является надёжным алгоритмом хэширования и обеспечивает безопасность хранения паролей.
+     * Время хэширования и проверки паролей публикуется в метрике security.password.hash.
      */
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new MeteredPasswordEncoder(meterRegistry, maxConcurrentHashes);
     }
 
     /*
@@ -59,6 +85,15 @@ public class SecurityConfig {
         return authProvider;
     }
 
+    /*
+     * Определяет бин AuthenticationManager, через который AuthController проверяет логин и пароль
+     * при выдаче токена доступа.
+     */
+    @Bean
+    public AuthenticationManager authenticationManager() {
+        return new ProviderManager(authenticationProvider());
+    }
+
     /*
      * Метод filterChain настраивает цепочку фильтров безопасности для HTTP-запросов.
      * Здесь происходит конфигурация следующих аспектов:
@@ -67,7 +102,8 @@ public class SecurityConfig {
      *    - Все запросы, начинающиеся на /auth/** и /h2-console/**, доступны без аутентификации.
      *    - Запросы к /admin/** доступны только пользователям с ролью "ADMIN".
      *    - Все остальные запросы требуют аутентификации.
-     * 3. Использование базовой HTTP-аутентификации.
+     * 3. Аутентификация по токену доступа (заголовок "Authorization: Bearer"), выданному POST /auth/login.
+     *    Базовая HTTP-аутентификация сохранена для совместимости, но проверяет пароль BCrypt в каждом запросе.
      * 4. Отключение заголовка frameOptions, чтобы разрешить работу консоли H2.
      */
     @Bean
@@ -79,11 +115,16 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Разрешаем доступ без аутентификации для URL-адресов /auth/** и /h2-console/**
                         .requestMatchers("/auth/**", "/h2-console/**").permitAll()
+                        // Проверка состояния доступна без аутентификации, остальные эндпоинты Actuator — только ADMIN.
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // Доступ к URL /admin/** разрешён только для пользователей с ролью ADMIN.
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         // Для всех остальных запросов требуется аутентификация.
                         .anyRequest().authenticated()
                 )
+                // Проверяем токен доступа до базовой аутентификации.
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 // Включаем базовую HTTP-аутентификацию с настройками по умолчанию.
                 .httpBasic(Customizer.withDefaults());
 
@@ -0,0 +1,158 @@
+package de.medical.app.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * TokenService выпускает и проверяет короткоживущие токены доступа.
+ *
+ * Токен имеет вид base64url(payload) + "." + base64url(HMAC-SHA256(payload)), где payload содержит
+ * срок действия, идентификатор пользователя, идентификатор пациента, роль и имя пользователя.
+ * Проверка токена — это один расчёт HMAC и сравнение подписи, поэтому дорогая проверка пароля BCrypt
+ * выполняется только при входе (POST /auth/login), а не в каждом запросе.
+ */
+@Service
+@Slf4j
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String VERSION = "v1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Mac prototype;  // Инициализированный ключом экземпляр Mac, который клонируется для каждого вызова.
+    private final Duration ttl;   // Время жизни токена.
+
+    // Время проверки токенов (метрика security.token.validation) по результату проверки.
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+
+    public TokenService(@Value("${medical.security.token.secret:}") String secret,
+                        @Value("${medical.security.token.ttl:15m}") Duration ttl,
+                        MeterRegistry meterRegistry) throws GeneralSecurityException {
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            log.warn("medical.security.token.secret is not set, using a random key: tokens will not survive a restart");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = Base64.getDecoder().decode(secret);
+        }
+        this.prototype = Mac.getInstance(ALGORITHM);
+        this.prototype.init(new SecretKeySpec(key, ALGORITHM));
+        this.ttl = ttl;
+        this.validTimer = validationTimer(meterRegistry, "valid");
+        this.invalidTimer = validationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("security.token.validation")
+                .description("Time spent validating access tokens")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /*
+     * Метод issue выпускает токен для аутентифицированного пользователя.
+     */
+    public String issue(MedicalUserDetails user) {
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        String payload = String.join("|",
+                VERSION,
+                Long.toString(expiresAt),
+                String.valueOf(user.getId()),
+                user.getPatientId() != null ? user.getPatientId().toString() : "",
+                user.getRole(),
+                user.getUsername());
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /*
+     * Метод parse проверяет подпись и срок действия токена.
+     * Возвращает данные пользователя или null, если токен повреждён, подделан или просрочен.
+     */
+    public MedicalUserDetails parse(String token) {
+        long start = System.nanoTime();
+        MedicalUserDetails user = null;
+        try {
+            user = verify(token);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Malformed access token: {}", ex.getMessage());
+        } finally {
+            (user != null ? validTimer : invalidTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return user;
+    }
+
+    private MedicalUserDetails verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, dot);
+        byte[] signature = DECODER.decode(token.substring(dot + 1));
+        if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+            return null;
+        }
+
+        String[] parts = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split("\\|", 6);
+        if (parts.length != 6 || !VERSION.equals(parts[0])) {
+            return null;
+        }
+        if (Long.parseLong(parts[1]) < Instant.now().getEpochSecond()) {
+            return null;
+        }
+        Long id = Long.valueOf(parts[2]);
+        Long patientId = parts[3].isEmpty() ? null : Long.valueOf(parts[3]);
+        // Пароль в токене не передаётся и для дальнейшей обработки запроса не нужен.
+        return new MedicalUserDetails(id, parts[5], "", parts[4], patientId);
+    }
+
+    private byte[] sign(String encodedPayload) {
+        Mac mac;
+        try {
+            // Mac не потокобезопасен, поэтому каждый вызов работает со своей копией.
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public long getTtlSeconds() {
+        return ttl.getSeconds();
+    }
+
+    public long validationCount() {
+        return validTimer.count() + invalidTimer.count();
+    }
+
+    public long failureCount() {
+        return invalidTimer.count();
+    }
+
+    public long averageValidationNanos() {
+        long count = validationCount();
+        return count == 0 ? 0 : (long) ((validTimer.totalTime(TimeUnit.NANOSECONDS) + invalidTimer.totalTime(TimeUnit.NANOSECONDS)) / count);
+    }
+
+    // Максимум за последнее окно публикации метрик (по умолчанию около двух минут).
+    public long maxValidationNanos() {
+        return (long) Math.max(validTimer.max(TimeUnit.NANOSECONDS), invalidTimer.max(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,347 @@
+package de.medical.app.service;
+
+import de.medical.app.dto.AppointmentChange;
+import de.medical.app.dto.AppointmentChanges;
+import de.medical.app.model.Appointment;
+import de.medical.app.utils.CursorCodec;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * AppointmentChangeLog ведёт журнал создания и удаления записей на приём (таблица appointment_change)
+ * для инкрементальной синхронизации клиентов (GET /appointment/changes): клиент получает только изменения
+ * после своего токена, а не весь список записей заново.
+ *
+ * Каждая строка журнала получает номер из последовательности appointment_change_seq прямо в операторе INSERT,
+ * поэтому транзакции, меняющие записи, не ждут друг друга. Номера фиксируются не по порядку: транзакция с меньшим
+ * номером может зафиксироваться позже, и клиент, продвинувший токен за больший номер, пропустил бы её изменение.
+ * Поэтому читатели видят журнал только до стабильного номера (appointment_change_counter.stable_version),
+ * ниже которого незафиксированных изменений не осталось. Его продвигает фоновая задача (advanceStableVersion)
+ * каждые medical.sync.stable-interval: по видимым строкам журнала подряд, а через пропуск в номерах — только
+ * если следующая за пропуском строка старше medical.sync.settle-delay. Пропуск оставляют откаченные транзакции
+ * и транзакции, ещё не зафиксированные: номер пропуска выдан раньше следующей строки, поэтому через settle-delay
+ * его транзакция уже завершена, если транзакции, меняющие записи, короче settle-delay
+ * (с учётом расхождения часов экземпляров приложения). Поэтому журнал пишут только короткие транзакции:
+ * бронирование, удаление записи и удаление не более medical.purge.chunk-size записей пациента за транзакцию
+ * (большая история удаляется порциями, см. PatientService.deletePatientCascade).
+ *
+ * Журнал хранится medical.sync.retention; токен, указывающий в удалённую часть журнала, считается устаревшим,
+ * и клиент получает снимок текущих записей. Демонстрационные и синтетические данные создаются при запуске
+ * мимо журнала и попадают к клиентам в снимке.
+ */
+@Component
+@Slf4j
+public class AppointmentChangeLog {
+
+    // Размер ответа по умолчанию и максимальный размер ответа (изменений или записей снимка).
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String SEQUENCE = "appointment_change_seq";
+    private static final String READ_STABLE_VERSION = "SELECT stable_version FROM appointment_change_counter WHERE id = 1";
+    private static final String READ_COUNTER =
+            "SELECT stable_version, pruned_version FROM appointment_change_counter WHERE id = 1";
+    private static final String INSERT_CHANGE = "INSERT INTO appointment_change "
+            + "(change_version, appointment_id, patient_id, change_type, date_time, changed_at) ";
+    // Сколько номеров журнала просматривается за один запрос при продвижении стабильного номера.
+    private static final int STABLE_SCAN_BATCH = 10_000;
+
+    // Вид токена: позиция в журнале или позиция в снимке.
+    private static final String DELTA = "d";
+    private static final String SNAPSHOT = "s";
+
+    private static final RowMapper<LoggedChange> LOGGED_CHANGE = (rs, rowNum) -> new LoggedChange(
+            rs.getLong("change_version"), new AppointmentChange(AppointmentChange.Type.valueOf(rs.getString("change_type")),
+            rs.getLong("appointment_id"), rs.getLong("patient_id"), toLocalDateTime(rs.getTimestamp("date_time"))));
+
+    private final JdbcTemplate jdbcTemplate;               // Запросы к журналу и счётчику мимо Hibernate.
+    private final TransactionTemplate transactionTemplate; // Транзакция очистки журнала.
+    private final TaskScheduler scheduler;                 // Поток продвижения стабильного номера и очистки журнала.
+    private final String nextVersion;                      // Выражение следующего номера в диалекте базы данных.
+    private final Duration retention;                      // Срок хранения изменений.
+    private final Duration pruneInterval;                  // Период очистки журнала.
+    private final Duration settleDelay;                    // Через сколько пропуск в номерах считается завершённым.
+    private final Duration stableInterval;                 // Период продвижения стабильного номера.
+
+    public AppointmentChangeLog(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                EntityManagerFactory entityManagerFactory,
+                                @Qualifier("maintenanceScheduler") TaskScheduler scheduler,
+                                @Value("${medical.sync.retention:7d}") Duration retention,
+                                @Value("${medical.sync.prune-interval:1h}") Duration pruneInterval,
+                                @Value("${medical.sync.settle-delay:30s}") Duration settleDelay,
+                                @Value("${medical.sync.stable-interval:1s}") Duration stableInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduler = scheduler;
+        this.nextVersion = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSelectSequenceNextValString(SEQUENCE);
+        this.retention = retention;
+        this.pruneInterval = pruneInterval;
+        this.settleDelay = settleDelay;
+        this.stableInterval = stableInterval;
+    }
+
+    /*
+     * Позиция клиента: в журнале — последнее полученное изменение (version, appointmentId);
+     * в снимке — стабильный номер, на котором начат снимок, и последняя отданная запись.
+     */
+    private record Position(boolean snapshot, long version, long appointmentId) {
+
+        // Первый номер журнала, который клиенту ещё нужен.
+        long nextVersion() {
+            return snapshot ? version + 1 : version;
+        }
+    }
+
+    // Строка журнала: номер изменения и само изменение.
+    private record LoggedChange(long version, AppointmentChange change) {
+    }
+
+    // Номер строки журнала и время её записи (для продвижения стабильного номера).
+    private record LoggedAt(long version, LocalDateTime changedAt) {
+    }
+
+    /*
+     * Метод recordCreated записывает создание записи (после её сохранения, когда известен id).
+     */
+    public void recordCreated(Appointment appointment) {
+        record(AppointmentChange.Type.CREATED, appointment);
+    }
+
+    /*
+     * Метод recordDeleted записывает удаление записи; вызывается до удаления.
+     */
+    public void recordDeleted(Appointment appointment) {
+        record(AppointmentChange.Type.DELETED, appointment);
+    }
+
+    /*
+     * Метод recordDeletedByIds записывает удаление записей с указанными id одним оператором INSERT ... SELECT
+     * (порция фонового удаления истории пациента); вызывается до удаления.
+     */
+    public int recordDeletedByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(LocalDateTime.now());
+        args.addAll(ids);
+        return jdbcTemplate.update(INSERT_CHANGE + "SELECT " + nextVersion + ", id, patient_id, 'DELETED', date_time, ? "
+                + "FROM appointment WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")",
+                args.toArray());
+    }
+
+    /*
+     * Метод recordPatientDeleted записывает удаление всех записей пациента одним оператором INSERT ... SELECT,
+     * без загрузки записей в память; вызывается перед массовым удалением (AppointmentRepository.deleteByPatientId).
+     */
+    public int recordPatientDeleted(Long patientId) {
+        return jdbcTemplate.update(INSERT_CHANGE + "SELECT " + nextVersion + ", id, patient_id, 'DELETED', date_time, ? "
+                + "FROM appointment WHERE patient_id = ?", LocalDateTime.now(), patientId);
+    }
+
+    /*
+     * Метод findChanges возвращает изменения после токена since: записи пациента patientId или, если он null, все записи.
+     * Без токена и с устаревшим токеном возвращается снимок текущих записей (reset=true) страницами по size записей;
+     * токен последней страницы снимка указывает в журнал сразу после стабильного номера, на котором снимок начат.
+     * Стабильный номер читается до записей снимка: изменение, зафиксированное между ними, может прийти и в снимке,
+     * и в журнале, поэтому клиент применяет изменения идемпотентно.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentChanges findChanges(Long patientId, String since, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Position position = decode(since);
+        Map<String, Object> counter = jdbcTemplate.queryForMap(READ_COUNTER);
+        long stableVersion = ((Number) counter.get("stable_version")).longValue();
+        long prunedVersion = ((Number) counter.get("pruned_version")).longValue();
+        // Токен другой базы (например, до перезапуска) указывает дальше стабильного номера и тоже считается устаревшим.
+        boolean reset = position == null || position.nextVersion() <= prunedVersion
+                || position.nextVersion() > stableVersion + 1;
+        if (reset) {
+            position = new Position(true, stableVersion, 0);
+        }
+        return position.snapshot()
+                ? snapshotPage(patientId, position, limit, reset)
+                : deltaPage(patientId, position, limit, stableVersion);
+    }
+
+    /*
+     * Продвижение стабильного номера и очистка начинаются после запуска приложения:
+     * к этому моменту миграции уже выполнены.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMaintenance() {
+        scheduler.scheduleWithFixedDelay(this::advanceQuietly, stableInterval);
+        scheduler.scheduleWithFixedDelay(this::prune, pruneInterval);
+    }
+
+    /*
+     * Метод advanceStableVersion продвигает стабильный номер по видимым строкам журнала и возвращает его.
+     * Следующий номер принимается, если он идёт подряд за стабильным; через пропуск в номерах — только если
+     * строка после пропуска записана раньше, чем settle-delay назад (иначе пропуск может быть незафиксированной
+     * транзакцией). Номер только растёт, поэтому продвигать его могут несколько экземпляров приложения одновременно.
+     */
+    public long advanceStableVersion() {
+        long stable = jdbcTemplate.queryForObject(READ_STABLE_VERSION, Long.class);
+        LocalDateTime settled = LocalDateTime.now().minus(settleDelay);
+        long advanced = stable;
+        boolean blocked = false;
+        while (!blocked) {
+            List<LoggedAt> rows = jdbcTemplate.query("SELECT change_version, changed_at FROM appointment_change "
+                            + "WHERE change_version > ? ORDER BY change_version LIMIT ?",
+                    (rs, rowNum) -> new LoggedAt(rs.getLong("change_version"), rs.getTimestamp("changed_at").toLocalDateTime()),
+                    advanced, STABLE_SCAN_BATCH);
+            for (LoggedAt row : rows) {
+                if (row.version() > advanced + 1 && !row.changedAt().isBefore(settled)) {
+                    blocked = true;
+                    break;
+                }
+                advanced = row.version();
+            }
+            blocked |= rows.size() < STABLE_SCAN_BATCH;
+        }
+        if (advanced > stable) {
+            jdbcTemplate.update("UPDATE appointment_change_counter SET stable_version = GREATEST(stable_version, ?) "
+                    + "WHERE id = 1", advanced);
+        }
+        return advanced;
+    }
+
+    private void advanceQuietly() {
+        try {
+            advanceStableVersion();
+        } catch (DataAccessException ex) {
+            log.warn("Failed to advance the stable appointment change version: {}", ex.getMessage());
+        }
+    }
+
+    /*
+     * Удаляет из журнала изменения старше срока хранения (см. pruneBefore).
+     */
+    void prune() {
+        try {
+            int deleted = pruneBefore(LocalDateTime.now().minus(retention));
+            if (deleted > 0) {
+                log.info("Pruned {} appointment changes older than {}", deleted, retention);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Failed to prune appointment changes: {}", ex.getMessage());
+        }
+    }
+
+    /*
+     * Метод pruneBefore удаляет из журнала изменения, записанные раньше before, но не дальше стабильного номера;
+     * удаляются только номера целиком, а наибольший удалённый номер запоминается в счётчике (pruned_version)
+     * для проверки токенов. Возвращает число удалённых строк.
+     */
+    public int pruneBefore(LocalDateTime before) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            Long version = jdbcTemplate.queryForObject("SELECT MAX(change_version) FROM appointment_change "
+                    + "WHERE changed_at < ? AND change_version <= (" + READ_STABLE_VERSION + ")", Long.class, before);
+            if (version == null) {
+                return 0;
+            }
+            jdbcTemplate.update("UPDATE appointment_change_counter SET pruned_version = GREATEST(pruned_version, ?) "
+                    + "WHERE id = 1", version);
+            return jdbcTemplate.update("DELETE FROM appointment_change WHERE change_version <= ?", version);
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    // Время записи берётся до INSERT, в котором выдаётся номер: оно не позже выдачи номера (см. advanceStableVersion).
+    private void record(AppointmentChange.Type type, Appointment appointment) {
+        jdbcTemplate.update(INSERT_CHANGE + "VALUES (" + nextVersion + ", ?, ?, ?, ?, ?)", appointment.getId(),
+                appointment.getPatient().getId(), type.name(), appointment.getDateTime(), LocalDateTime.now());
+    }
+
+    // Страница снимка текущих записей по возрастанию id.
+    private AppointmentChanges snapshotPage(Long patientId, Position position, int limit, boolean reset) {
+        String sql = "SELECT id, patient_id, date_time FROM appointment WHERE id > ?"
+                + (patientId != null ? " AND patient_id = ?" : "") + " ORDER BY id LIMIT ?";
+        Object[] args = patientId != null
+                ? new Object[]{position.appointmentId(), patientId, limit + 1}
+                : new Object[]{position.appointmentId(), limit + 1};
+        List<AppointmentChange> rows = jdbcTemplate.query(sql, (rs, rowNum) -> new AppointmentChange(
+                AppointmentChange.Type.CREATED, rs.getLong("id"), rs.getLong("patient_id"),
+                toLocalDateTime(rs.getTimestamp("date_time"))), args);
+        if (rows.size() <= limit) {
+            return new AppointmentChanges(reset, rows, CursorCodec.encode(DELTA, position.nextVersion(), 0), false);
+        }
+        List<AppointmentChange> items = rows.subList(0, limit);
+        return new AppointmentChanges(reset, items,
+                CursorCodec.encode(SNAPSHOT, position.version(), items.get(limit - 1).appointmentId()), true);
+    }
+
+    /*
+     * Изменения после позиции до стабильного номера в порядке (номер, id записи).
+     * Все изменения с номерами до stableVersion уже зафиксированы и видны: токен последней порции указывает сразу
+     * за ним, даже если изменений пациента не было. Так клиент, синхронизирующийся чаще срока хранения журнала,
+     * не получает снимок из-за чужих изменений.
+     */
+    private AppointmentChanges deltaPage(Long patientId, Position position, int limit, long stableVersion) {
+        String sql = "SELECT change_version, appointment_id, patient_id, change_type, date_time FROM appointment_change "
+                + "WHERE (change_version > ? OR (change_version = ? AND appointment_id > ?)) AND change_version <= ?"
+                + (patientId != null ? " AND patient_id = ?" : "")
+                + " ORDER BY change_version, appointment_id LIMIT ?";
+        Object[] args = patientId != null
+                ? new Object[]{position.version(), position.version(), position.appointmentId(), stableVersion, patientId, limit + 1}
+                : new Object[]{position.version(), position.version(), position.appointmentId(), stableVersion, limit + 1};
+        List<LoggedChange> rows = jdbcTemplate.query(sql, LOGGED_CHANGE, args);
+        if (rows.size() <= limit) {
+            String token = stableVersion >= position.version()
+                    ? CursorCodec.encode(DELTA, stableVersion + 1, 0)
+                    : encode(position);
+            return new AppointmentChanges(false, rows.stream().map(LoggedChange::change).toList(), token, false);
+        }
+        List<LoggedChange> items = rows.subList(0, limit);
+        LoggedChange last = items.get(limit - 1);
+        return new AppointmentChanges(false, items.stream().map(LoggedChange::change).toList(),
+                CursorCodec.encode(DELTA, last.version(), last.change().appointmentId()), true);
+    }
+
+    private static String encode(Position position) {
+        return CursorCodec.encode(position.snapshot() ? SNAPSHOT : DELTA, position.version(), position.appointmentId());
+    }
+
+    // Разбирает токен; возвращает null для первой синхронизации.
+    private static Position decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        try {
+            parts = CursorCodec.decode(token, 3);
+            if (!DELTA.equals(parts[0]) && !SNAPSHOT.equals(parts[0])) {
+                throw new IllegalArgumentException("Unknown token kind");
+            }
+            return new Position(SNAPSHOT.equals(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid sync token", ex);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,171 @@
+package de.medical.app.service;
+
+import de.medical.app.dto.AppointmentListVersion;
+import de.medical.app.dto.CalendarEntry;
+import de.medical.app.dto.CompactAppointmentPage;
+import de.medical.app.dto.CursorPage;
+import de.medical.app.dto.Versioned;
+import de.medical.app.model.Appointment;
+import de.medical.app.repository.AppointmentRepository;
+import de.medical.app.repository.PatientRepository;
+import de.medical.app.utils.CursorCodec;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/*
+ * AppointmentService инкапсулирует логику чтения записей на приём.
+ * Выборка выполняется постранично на стороне базы данных (keyset-пагинация по ключу (dateTime, id)),
+ * поэтому ни один запрос не загружает всю таблицу записей в память.
+ */
+@Service // Обозначает класс как сервис-компонент Spring.
+public class AppointmentService {
+
+    // Размер страницы по умолчанию и максимально допустимый размер страницы.
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final AppointmentRepository appointmentRepository; // Репозиторий для доступа к данным записей.
+    private final PatientRepository patientRepository;         // Репозиторий пациентов (для подгрузки в компактном режиме).
+    private final JdbcTemplate jdbcTemplate;                   // Для увеличения версии списка записей пациента.
+
+    // Конструктор для внедрения зависимостей.
+    public AppointmentService(AppointmentRepository appointmentRepository, PatientRepository patientRepository,
+                              JdbcTemplate jdbcTemplate) {
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Значения ключа (dateTime, id) из курсора.
+    private record Key(LocalDateTime dateTime, Long id) {
+    }
+
+    /*
+     * Метод findPage возвращает страницу записей, отсортированных по (dateTime, id).
+     * Если patientId равен null, выбираются записи всех пациентов (режим администратора).
+     * Курсор — значение nextCursor предыдущей страницы; при некорректном курсоре выбрасывается IllegalArgumentException.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Appointment> findPage(Long patientId, String cursor, int size) {
+        int pageSize = pageSize(size);
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница.
+        Limit limit = Limit.of(pageSize + 1);
+
+        Key key = decode(cursor);
+        List<Appointment> rows;
+        if (key == null) {
+            rows = patientId == null
+                    ? appointmentRepository.findFirstPage(limit)
+                    : appointmentRepository.findFirstPageByPatientId(patientId, limit);
+        } else {
+            rows = patientId == null
+                    ? appointmentRepository.findPageAfter(key.dateTime(), key.id(), limit)
+                    : appointmentRepository.findPageByPatientIdAfter(patientId, key.dateTime(), key.id(), limit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Appointment> items = rows.subList(0, pageSize);
+        Appointment last = items.get(pageSize - 1);
+        return new CursorPage<>(items, CursorCodec.encode(last.getDateTime(), last.getId()));
+    }
+
+    /*
+     * Метод findCompactPage возвращает ту же страницу, что и findPage, в компактном виде:
+     * записи ссылаются на пациента по id, а каждый пациент страницы загружается один раз отдельным запросом.
+     * Оба запроса выполняются в одной транзакции, то есть на одной и той же реплике.
+     */
+    @Transactional(readOnly = true)
+    public CompactAppointmentPage findCompactPage(Long patientId, String cursor, int size) {
+        int pageSize = pageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+
+        Key key = decode(cursor);
+        List<CalendarEntry> rows;
+        if (key == null) {
+            rows = patientId == null
+                    ? appointmentRepository.findEntriesFirstPage(limit)
+                    : appointmentRepository.findEntriesFirstPageByPatientId(patientId, limit);
+        } else {
+            rows = patientId == null
+                    ? appointmentRepository.findEntriesPageAfter(key.dateTime(), key.id(), limit)
+                    : appointmentRepository.findEntriesPageByPatientIdAfter(patientId, key.dateTime(), key.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            CalendarEntry last = rows.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(last.dateTime(), last.id());
+        }
+        Set<Long> patientIds = new LinkedHashSet<>();
+        for (CalendarEntry row : rows) {
+            patientIds.add(row.patientId());
+        }
+        return new CompactAppointmentPage(rows,
+                patientIds.isEmpty() ? List.of() : patientRepository.findSummariesByIdIn(patientIds),
+                nextCursor);
+    }
+
+    /*
+     * Метод findListVersion возвращает версию списка записей пациента (одна выборка по первичному ключу).
+     * Позволяет ответить 304 Not Modified, не читая саму страницу.
+     */
+    @Transactional(readOnly = true)
+    public Optional<AppointmentListVersion> findListVersion(Long patientId) {
+        return patientRepository.findAppointmentListVersion(patientId);
+    }
+
+    /*
+     * Метод readVersioned читает версию списка записей пациента, а затем выполняет чтение (например, findPage)
+     * в одной транзакции, то есть на одной реплике.
+     * Версия читается первой: при READ_COMMITTED изменение, зафиксированное между двумя запросами, может попасть
+     * в данные, но не в версию. Тогда ETag оказывается старше данных, и следующий условный запрос просто получит
+     * страницу заново. При обратном порядке новый ETag мог бы достаться старым данным, и клиент получал бы
+     * 304 Not Modified для устаревшей страницы до следующего изменения.
+     */
+    @Transactional(readOnly = true)
+    public <T> Versioned<T> readVersioned(Long patientId, Supplier<T> reader) {
+        AppointmentListVersion version = patientRepository.findAppointmentListVersion(patientId).orElse(null);
+        return new Versioned<>(reader.get(), version);
+    }
+
+    /*
+     * Метод touchAppointments увеличивает версию списка записей пациента; вызывается в транзакции,
+     * которая создаёт или удаляет запись. Увеличение выполняется одним SQL-оператором, поэтому
+     * параллельные изменения не теряются. Оператор выполняется мимо Hibernate: столбец только читается
+     * сущностью Patient, и кэш второго уровня пациентов не сбрасывается.
+     */
+    @Transactional
+    public void touchAppointments(Long patientId) {
+        jdbcTemplate.update("UPDATE patient SET appointments_version = appointments_version + 1 WHERE id = ?", patientId);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    // Разбирает курсор; возвращает null для первой страницы.
+    private static Key decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] key = CursorCodec.decode(cursor, 2);
+        try {
+            return new Key(LocalDateTime.parse(key[0]), Long.valueOf(key[1]));
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package de.medical.app.service;
+
+import de.medical.app.dto.DayAvailability;
+import de.medical.app.index.AppointmentCalendarIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * AvailabilityService ищет свободные слоты для записи на приём.
+ *
+ * Рабочий день делится на слоты одинаковой длины (не более 64 в день). Занятость дня хранится
+ * одной 64-битной маской, которую строит календарный индекс в памяти, поэтому поиск свободных слотов
+ * сводится к битовым операциям и не обращается к базе данных.
+ * Слот считается занятым, если в нём начинается хотя бы одна запись.
+ */
+@Service
+public class AvailabilityService {
+
+    // Максимальное количество дней, просматриваемых при поиске ближайшего свободного слота.
+    private static final int MAX_SEARCH_DAYS = 366;
+
+    private final AppointmentCalendarIndex calendarIndex;
+    private final LocalTime dayStart;          // Начало рабочего дня.
+    private final int slotMinutes;             // Длина слота в минутах.
+    private final int slotCount;               // Количество слотов в рабочем дне.
+    private final long fullMask;               // Маска, в которой установлены биты всех слотов дня.
+    private final Set<DayOfWeek> workingDays;  // Рабочие дни недели.
+
+    public AvailabilityService(AppointmentCalendarIndex calendarIndex,
+                               @Value("${medical.schedule.day-start:08:00}") LocalTime dayStart,
+                               @Value("${medical.schedule.day-end:18:00}") LocalTime dayEnd,
+                               @Value("${medical.schedule.slot-length:30m}") Duration slotLength,
+                               @Value("${medical.schedule.working-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}") List<DayOfWeek> workingDays) {
+        this.calendarIndex = calendarIndex;
+        this.dayStart = dayStart;
+        this.slotMinutes = (int) slotLength.toMinutes();
+        long dayMinutes = Duration.between(dayStart, dayEnd).toMinutes();
+        if (slotMinutes <= 0 || dayMinutes <= 0 || dayMinutes % slotMinutes != 0) {
+            throw new IllegalStateException("Working hours must be a positive multiple of the slot length");
+        }
+        this.slotCount = (int) (dayMinutes / slotMinutes);
+        if (slotCount > Long.SIZE) {
+            throw new IllegalStateException("At most " + Long.SIZE + " slots per day are supported, got " + slotCount);
+        }
+        this.fullMask = slotCount == Long.SIZE ? -1L : (1L << slotCount) - 1;
+        this.workingDays = workingDays.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(workingDays);
+    }
+
+    /*
+     * Метод findFreeSlots возвращает свободные слоты по дням в интервале дат [from, to] включительно.
+     * Слоты, начало которых уже прошло, не возвращаются.
+     */
+    public List<DayAvailability> findFreeSlots(LocalDate from, LocalDate to) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DayAvailability> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            long free = freeMask(date, now);
+            List<LocalTime> slots = new ArrayList<>(Long.bitCount(free));
+            while (free != 0) {
+                int slot = Long.numberOfTrailingZeros(free);
+                slots.add(dayStart.plusMinutes((long) slot * slotMinutes));
+                free &= free - 1;
+            }
+            result.add(new DayAvailability(date, slots));
+        }
+        return result;
+    }
+
+    /*
+     * Метод findNextFreeSlot возвращает начало ближайшего свободного слота не раньше заданного момента.
+     */
+    public Optional<LocalDateTime> findNextFreeSlot(LocalDateTime after) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime notBefore = after.isAfter(now) ? after : now;
+        LocalDate date = notBefore.toLocalDate();
+        for (int i = 0; i < MAX_SEARCH_DAYS; i++, date = date.plusDays(1)) {
+            long free = freeMask(date, notBefore);
+            if (free != 0) {
+                int slot = Long.numberOfTrailingZeros(free);
+                return Optional.of(date.atTime(dayStart).plusMinutes((long) slot * slotMinutes));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /*
+     * Метод isSlotStart проверяет, что момент совпадает с началом слота рабочего дня (с точностью до минуты).
+     * Записи создаются только на начало слота, поэтому одному слоту соответствует одно значение времени,
+     * и уникальность времени записи в базе данных исключает двойное бронирование слота.
+     */
+    public boolean isSlotStart(LocalDateTime dateTime) {
+        if (!workingDays.contains(dateTime.getDayOfWeek()) || dateTime.getSecond() != 0 || dateTime.getNano() != 0) {
+            return false;
+        }
+        long minutes = Duration.between(dayStart, dateTime.toLocalTime()).toMinutes();
+        return minutes >= 0 && minutes % slotMinutes == 0 && minutes / slotMinutes < slotCount;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    // Маска свободных слотов дня, начинающихся не раньше notBefore.
+    private long freeMask(LocalDate date, LocalDateTime notBefore) {
+        if (!workingDays.contains(date.getDayOfWeek())) {
+            return 0;
+        }
+        LocalDateTime start = date.atTime(dayStart);
+        long free = ~calendarIndex.occupancy(start, slotMinutes, slotCount) & fullMask;
+        if (notBefore.isAfter(start)) {
+            long passed = (Duration.between(start, notBefore).toMinutes() + slotMinutes - 1) / slotMinutes;
+            free &= passed >= Long.SIZE ? 0 : -1L << passed;
+        }
+        return free;
+    }
+}
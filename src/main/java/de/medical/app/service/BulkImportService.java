@@ -0,0 +1,351 @@
+package de.medical.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import de.medical.app.dto.ImportReport;
+import de.medical.app.dto.UserDto;
+import de.medical.app.model.Patient;
+import de.medical.app.model.User;
+import de.medical.app.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * BulkImportService выполняет массовый импорт пользователей и пациентов из CSV или NDJSON.
+ *
+ * Входные данные читаются потоком и разбиваются на порции (medical.import.chunk-size):
+ * - пароли порции хэшируются BCrypt параллельно на пуле passwordHashExecutor;
+ * - пока хэшируется следующая порция, предыдущая записывается в базу данных в отдельной транзакции;
+ * - INSERT-операторы объединяются Hibernate в пакеты JDBC (hibernate.jdbc.batch_size),
+ *   а идентификаторы берутся из последовательностей блоками, без обращения к базе на каждую строку.
+ *
+ * Формат CSV: username,password,name,birthDate (дата в формате ISO, например 1990-01-31); строка заголовка допускается,
+ * поля с запятыми или кавычками заключаются в кавычки.
+ * Формат NDJSON: по одному объекту UserDto на строку.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    // Сколько пропущенных имён перечисляется в отчёте (счётчик skipped учитывает все).
+    static final int MAX_REPORTED_SKIPS = 100;
+
+    // Разбор CSV: каждая строка читается как список полей, пустые строки пропускаются.
+    private static final CsvMapper CSV = CsvMapper.builder()
+            .enable(CsvParser.Feature.WRAP_AS_ARRAY)
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .build();
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final TaskExecutor passwordHashExecutor;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    // Конструктор для внедрения зависимостей.
+    public BulkImportService(UserRepository userRepository, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, BCryptPasswordEncoder passwordEncoder,
+                             @Qualifier("passwordHashExecutor") TaskExecutor passwordHashExecutor,
+                             ObjectMapper objectMapper,
+                             @Value("${medical.import.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashExecutor = passwordHashExecutor;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * Порция строк вместе с незавершёнными задачами хэширования паролей.
+     */
+    private record Chunk(List<UserDto> rows, List<CompletableFuture<String>> hashes) {
+    }
+
+    /*
+     * Результат записи строк: сколько пользователей создано и чьи имена оказались заняты.
+     */
+    private record Written(int count, List<String> skippedUsernames) {
+    }
+
+    /*
+     * Метод importUsers читает входной поток и импортирует пользователей порциями.
+     * Пользователи с уже занятыми именами пропускаются и перечисляются в отчёте (первые MAX_REPORTED_SKIPS).
+     */
+    public ImportReport importUsers(InputStream in, Format format) throws IOException {
+        Import job = new Import(System.nanoTime());
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (format == Format.CSV) {
+            readCsv(reader, job);
+        } else {
+            readNdjson(new BufferedReader(reader), job);
+        }
+        ImportReport report = job.finish();
+        log.info("Bulk import finished: {}", report);
+        return report;
+    }
+
+    /*
+     * Состояние одного импорта: текущая порция, порция, которая хэшируется, и счётчики для отчёта.
+     */
+    private final class Import {
+        private final long start;
+        private final List<String> skippedUsernames = new ArrayList<>();
+        private long received, imported, skipped, failed;
+        private List<UserDto> rows = new ArrayList<>(chunkSize);
+        private Chunk pending;
+
+        Import(long start) {
+            this.start = start;
+        }
+
+        void add(UserDto dto) {
+            received++;
+            if (dto == null) {
+                failed++;
+                return;
+            }
+            rows.add(dto);
+            if (rows.size() == chunkSize) {
+                // Запускаем хэширование новой порции и, пока оно идёт, записываем предыдущую.
+                Chunk next = startHashing(rows);
+                rows = new ArrayList<>(chunkSize);
+                if (pending != null) {
+                    write(pending);
+                    logProgress(imported, start);
+                }
+                pending = next;
+            }
+        }
+
+        ImportReport finish() {
+            if (pending != null) {
+                write(pending);
+            }
+            if (!rows.isEmpty()) {
+                write(startHashing(rows));
+            }
+            long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            return new ImportReport(received, imported, skipped, skippedUsernames, failed, elapsedMillis,
+                    received * 1000 / elapsedMillis);
+        }
+
+        private void write(Chunk chunk) {
+            Written written = BulkImportService.this.write(chunk);
+            imported += written.count();
+            skipped += chunk.rows().size() - written.count();
+            for (String username : written.skippedUsernames()) {
+                if (skippedUsernames.size() < MAX_REPORTED_SKIPS) {
+                    skippedUsernames.add(username);
+                }
+            }
+        }
+    }
+
+    /*
+     * CSV разбирается по RFC 4180: поля в кавычках могут содержать запятые, кавычки ("") и переводы строк.
+     * При нарушении структуры (например, незакрытой кавычке) чтение прекращается: остаток файла
+     * уже нельзя однозначно разделить на строки, поэтому он считается одной неразобранной строкой.
+     */
+    private void readCsv(Reader reader, Import job) throws IOException {
+        boolean first = true;
+        try (MappingIterator<List<String>> records = CSV.readerForListOf(String.class).readValues(reader)) {
+            while (true) {
+                List<String> columns;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    columns = records.nextValue();
+                } catch (JsonProcessingException ex) {
+                    log.warn("Stopping CSV import at malformed input: {}", ex.getOriginalMessage());
+                    job.add(null);
+                    break;
+                } catch (RuntimeJsonMappingException ex) {
+                    log.warn("Stopping CSV import at malformed input: {}", ex.getMessage());
+                    job.add(null);
+                    break;
+                }
+                if (columns.size() == 1 && columns.get(0).isBlank()) {
+                    continue;
+                }
+                if (first && "username".equalsIgnoreCase(columns.get(0).trim())) {
+                    first = false;
+                    continue;
+                }
+                first = false;
+                job.add(fromColumns(columns));
+            }
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import job) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                job.add(fromJson(line));
+            }
+        }
+    }
+
+    private Chunk startHashing(List<UserDto> rows) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rows.size());
+        for (UserDto row : rows) {
+            hashes.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.getPassword()), passwordHashExecutor));
+        }
+        return new Chunk(rows, hashes);
+    }
+
+    /*
+     * Записывает порцию в одной транзакции.
+     * Имя может быть занято параллельно (например, регистрацией) между проверкой и вставкой; тогда уникальный индекс
+     * откатывает всю порцию, и она записывается заново по одной строке: конфликт пропускает только свою строку.
+     */
+    private Written write(Chunk chunk) {
+        try {
+            return writeRows(chunk, 0, chunk.rows().size());
+        } catch (RuntimeException ex) {
+            if (!isUniqueViolation(ex)) {
+                throw ex;
+            }
+            log.info("Bulk import chunk conflicts with concurrently created users, writing it row by row");
+        }
+        int count = 0;
+        List<String> skippedUsernames = new ArrayList<>();
+        for (int i = 0; i < chunk.rows().size(); i++) {
+            try {
+                Written row = writeRows(chunk, i, i + 1);
+                count += row.count();
+                skippedUsernames.addAll(row.skippedUsernames());
+            } catch (RuntimeException ex) {
+                if (!isUniqueViolation(ex)) {
+                    throw ex;
+                }
+                skippedUsernames.add(chunk.rows().get(i).getUsername());
+            }
+        }
+        return new Written(count, skippedUsernames);
+    }
+
+    /*
+     * Записывает строки порции [from, to) в одной транзакции.
+     */
+    private Written writeRows(Chunk chunk, int from, int to) {
+        Set<String> usernames = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            usernames.add(chunk.rows().get(i).getUsername());
+        }
+
+        return transactionTemplate.execute(status -> {
+            Set<String> taken = new HashSet<>(userRepository.findExistingUsernames(usernames));
+            List<String> skippedUsernames = new ArrayList<>();
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                UserDto row = chunk.rows().get(i);
+                // Add возвращает false для имён, которые уже есть в базе или повторяются в этой порции.
+                if (!taken.add(row.getUsername())) {
+                    skippedUsernames.add(row.getUsername());
+                    continue;
+                }
+                Patient patient = new Patient();
+                patient.setName(row.getName());
+                patient.setBirthDate(row.getBirthDate());
+                entityManager.persist(patient);
+
+                User user = new User();
+                user.setUsername(row.getUsername());
+                user.setPassword(chunk.hashes().get(i).join());
+                user.setRole("ROLE_USER");
+                user.setPatient(patient);
+                entityManager.persist(user);
+                count++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return new Written(count, skippedUsernames);
+        });
+    }
+
+    // Нарушение уникального индекса имени пользователя (uk_users_username) где-либо в цепочке причин.
+    private static boolean isUniqueViolation(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException || cause instanceof DataIntegrityViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private UserDto fromColumns(List<String> columns) {
+        if (columns.size() != 4) {
+            return null;
+        }
+        try {
+            UserDto dto = new UserDto();
+            dto.setUsername(columns.get(0).trim());
+            dto.setPassword(columns.get(1));
+            dto.setName(columns.get(2).trim());
+            dto.setBirthDate(LocalDate.parse(columns.get(3).trim()));
+            return validate(dto);
+        } catch (RuntimeException ex) {
+            log.debug("Skipping malformed import row: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private UserDto fromJson(String line) {
+        try {
+            return validate(objectMapper.readValue(line, UserDto.class));
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Skipping malformed import line: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private static UserDto validate(UserDto dto) {
+        if (isBlank(dto.getUsername()) || isBlank(dto.getPassword()) || isBlank(dto.getName()) || dto.getBirthDate() == null) {
+            return null;
+        }
+        return dto;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void logProgress(long imported, long start) {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Bulk import: {} users imported ({} rows/s)", imported, imported * 1000 / elapsedMillis);
+    }
+}
@@ -2,24 +2,28 @@ package de.medical.app.service;
 
 import de.medical.app.model.User;
 import de.medical.app.repository.UserRepository;
+import de.medical.app.security.MedicalUserDetails;
+import de.medical.app.security.PrincipalCache;
+import de.medical.app.security.PrincipalCache.CachedPrincipal;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.Collections;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /*
  * CustomUserDetailService реализует интерфейс UserDetailsService из Spring Security.
  * Его основная задача — загрузить детали пользователя по имени для проведения аутентификации.
  *
  * Когда пользователь пытается войти в систему, Spring Security вызывает метод loadUserByUsername.
- * В этом методе осуществляется поиск пользователя в базе данных через UserRepository.
+ * В этом методе осуществляется поиск пользователя в кэше PrincipalCache, а при промахе — в базе данных через UserRepository.
  * Если пользователь не найден, генерируется исключение UsernameNotFoundException.
- * Если пользователь найден, возвращается объект, реализующий UserDetails,
- * содержащий имя, зашифрованный пароль и список прав (ролей).
+ * Если пользователь найден, возвращается объект MedicalUserDetails,
+ * содержащий имя, зашифрованный пароль, роль, а также идентификаторы пользователя и пациента.
  *
  * Это необходимо для того, чтобы Spring Security мог корректно проверить данные аутентификации
  * и определить, к каким ресурсам пользователь имеет доступ.
@@ -28,31 +32,74 @@ import java.util.Collections;
 @Slf4j  // Lombok-аннотация для удобного логирования.
 public class CustomUserDetailService implements UserDetailsService {
     private final UserRepository userRepository; // Репозиторий для доступа к данным пользователей.
+    private final PrincipalCache principalCache; // Кэш данных аутентифицированных пользователей.
+    private final TransactionTemplate replicaRead;  // Читающая транзакция (при включённых репликах — на реплике).
+    private final TransactionTemplate primaryRead;  // Транзакция на основной базе.
 
-    // Конструктор для внедрения зависимости UserRepository.
-    public CustomUserDetailService(UserRepository userRepository) {
+    // Конструктор для внедрения зависимостей.
+    public CustomUserDetailService(UserRepository userRepository, PrincipalCache principalCache,
+                                   PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.replicaRead = new TransactionTemplate(transactionManager);
+        this.replicaRead.setReadOnly(true);
+        this.primaryRead = new TransactionTemplate(transactionManager);
     }
 
     /*
      * Метод loadUserByUsername используется Spring Security для загрузки информации о пользователе.
      * Если пользователь не найден, выбрасывается UsernameNotFoundException.
-     * Если найден, возвращается объект, содержащий имя, пароль и назначенные роли.
+     * Если найден, возвращается объект, содержащий имя, пароль, роль и идентификаторы.
+     * Кэш проверяется вне транзакции, поэтому попадание не занимает соединение с базой данных.
+     * При промахе пользователь читается в читающей транзакции (при включённых репликах — с реплики);
+     * если его там нет, чтение повторяется на основной базе: только что зарегистрированный пользователь
+     * должен сразу иметь возможность войти, даже если реплика ещё не получила его.
      */
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Поиск пользователя по имени (username) в базе данных.
-        User userEntity = userRepository.findByUsername(username);
-        if (userEntity == null) {
+    public MedicalUserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        CachedPrincipal cached = principalCache.get(username);
+        if (cached != null) {
+            return cached.toUserDetails();
+        }
+
+        CachedPrincipal principal = replicaRead.execute(status -> findPrincipal(username));
+        if (principal == null) {
+            principal = primaryRead.execute(status -> findPrincipal(username));
+        }
+        if (principal == null) {
             log.info("User not found: {}", username);
             throw new UsernameNotFoundException("User not found" + username);
         }
+        principalCache.put(principal);
+        return principal.toUserDetails();
+    }
 
-        // Формирование объекта UserDetails с назначением одной роли из userEntity.
-        return new org.springframework.security.core.userdetails.User(
+    // Поиск пользователя по имени (username) в базе данных; null, если пользователь не найден.
+    private CachedPrincipal findPrincipal(String username) {
+        User userEntity = userRepository.findByUsername(username);
+        if (userEntity == null) {
+            return null;
+        }
+        return new CachedPrincipal(
+                userEntity.getId(),
                 userEntity.getUsername(),
                 userEntity.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(userEntity.getRole()))
+                userEntity.getRole(),
+                userEntity.getPatient() != null ? userEntity.getPatient().getId() : null
         );
     }
+
+    /*
+     * Метод currentUser возвращает данные текущего аутентифицированного пользователя из SecurityContext.
+     * Если в контексте лежит не MedicalUserDetails (например, в тестах), пользователь загружается по имени.
+     */
+    public MedicalUserDetails currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof MedicalUserDetails userDetails) {
+            return userDetails;
+        }
+        String username = principal instanceof UserDetails userDetails ? userDetails.getUsername() : principal.toString();
+        return loadUserByUsername(username);
+    }
 }
@@ -0,0 +1,93 @@
+package de.medical.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.medical.app.model.Appointment;
+import de.medical.app.model.Patient;
+import de.medical.app.repository.AppointmentRepository;
+import de.medical.app.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+ * ExportService выгружает записи и пациентов в формате NDJSON (один JSON-объект на строку).
+ *
+ * Данные читаются потоком из базы данных и сразу пишутся в выходной поток, а контекст персистентности
+ * периодически очищается, поэтому потребление памяти не зависит от количества строк в таблице.
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    // Через сколько строк очищать контекст персистентности и сбрасывать буфер вывода.
+    private static final int FLUSH_EVERY = 500;
+
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    // Запись одной строки без сброса буфера: по умолчанию (FLUSH_AFTER_WRITE_VALUE) Jackson сбрасывает его
+    // после каждого значения, и каждая строка уходила бы клиенту отдельным куском ответа.
+    private final ObjectWriter rowWriter;
+
+    // Конструктор для внедрения зависимостей.
+    public ExportService(AppointmentRepository appointmentRepository, PatientRepository patientRepository,
+                         EntityManager entityManager, ObjectMapper objectMapper) {
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /*
+     * Метод exportAppointments записывает все записи на приём в выходной поток.
+     * Возвращает количество выгруженных строк.
+     */
+    @Transactional(readOnly = true)
+    public long exportAppointments(OutputStream out) throws IOException {
+        try (Stream<Appointment> rows = appointmentRepository.streamAll()) {
+            return writeNdjson(rows.iterator(), out, "appointments");
+        }
+    }
+
+    /*
+     * Метод exportPatients записывает всех пациентов в выходной поток.
+     * Возвращает количество выгруженных строк.
+     */
+    @Transactional(readOnly = true)
+    public long exportPatients(OutputStream out) throws IOException {
+        try (Stream<Patient> rows = patientRepository.streamAll()) {
+            return writeNdjson(rows.iterator(), out, "patients");
+        }
+    }
+
+    private long writeNdjson(Iterator<?> rows, OutputStream out, String name) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // Выходной поток закрывает контейнер сервлетов, а не генератор.
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Строки разделяются только переводом строки, без разделителя Jackson по умолчанию.
+        generator.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            rowWriter.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+                entityManager.clear();
+            }
+        }
+        generator.flush();
+        log.info("Exported {} {}", count, name);
+        return count;
+    }
+}
@@ -1,12 +1,31 @@
 package de.medical.app.service;
 
+import de.medical.app.dto.CursorPage;
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.dto.SearchPage;
+import de.medical.app.index.AppointmentCalendarIndex;
+import de.medical.app.index.PatientSearchIndex;
 import de.medical.app.model.Patient;
+import de.medical.app.model.User;
 import de.medical.app.repository.*;
+import de.medical.app.security.PrincipalCache;
+import de.medical.app.utils.CursorCodec;
 import jakarta.persistence.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * PatientService инкапсулирует бизнес-логику, связанную с пациентами.
@@ -14,30 +33,127 @@ import java.util.List;
  *
  * Этот сервис служит промежуточным звеном между контроллерами (обрабатывающими HTTP-запросы)
  * и репозиторием, что позволяет централизованно управлять логикой работы с пациентами.
+ *
+ * Методы чтения помечены @Transactional(readOnly = true): при включённых репликах они выполняются на реплике.
  */
 @Service // Обозначает класс как сервис-компонент Spring.
 @Slf4j  // Lombok-аннотация для логирования.
 public class PatientService {
 
+    // Максимальный размер страницы результатов поиска.
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    // Максимальный размер страницы при постраничном просмотре пациентов.
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /*
+     * Порядок сортировки при постраничном просмотре пациентов.
+     */
+    public enum SortOrder {
+        ID, NAME
+    }
+
     private final PatientRepository patientRepository; // Репозиторий для доступа к данным пациентов.
     private final UserRepository userRepository;
-    // Конструктор для внедрения зависимости PatientRepository.
-    public PatientService(PatientRepository patientRepository, UserRepository userRepository) {
+    private final AppointmentRepository appointmentRepository; // Репозиторий записей (для каскадного удаления).
+    private final TransactionTemplate transactionTemplate;     // Шаблон для транзакций отдельных порций удаления.
+    private final TaskExecutor purgeExecutor;                  // Пул потоков для фонового удаления.
+    private final int purgeChunkSize;                          // Количество записей, удаляемых за одну транзакцию.
+    private final PrincipalCache principalCache;               // Кэш данных аутентифицированных пользователей.
+    private final AppointmentCalendarIndex calendarIndex;      // Календарный индекс записей в памяти.
+    private final PatientSearchIndex searchIndex;              // Поисковый индекс имён пациентов в памяти.
+    private final AppointmentChangeLog changeLog;              // Журнал изменений записей (удаления при каскаде).
+
+    // Идентификаторы пациентов, для которых фоновое удаление уже выполняется.
+    private final Set<Long> purgesInProgress = ConcurrentHashMap.newKeySet();
+
+    // Конструктор для внедрения зависимостей.
+    public PatientService(PatientRepository patientRepository, UserRepository userRepository,
+                          AppointmentRepository appointmentRepository, PlatformTransactionManager transactionManager,
+                          @Qualifier("purgeExecutor") TaskExecutor purgeExecutor,
+                          @Value("${medical.purge.chunk-size:1000}") int purgeChunkSize,
+                          PrincipalCache principalCache, AppointmentCalendarIndex calendarIndex,
+                          PatientSearchIndex searchIndex, AppointmentChangeLog changeLog) {
         this.patientRepository = patientRepository;
         this.userRepository = userRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgeExecutor = purgeExecutor;
+        this.purgeChunkSize = purgeChunkSize;
+        this.principalCache = principalCache;
+        this.calendarIndex = calendarIndex;
+        this.searchIndex = searchIndex;
+        this.changeLog = changeLog;
     }
 
     /*
      * Метод findAll возвращает список всех пациентов.
      */
+    @Transactional(readOnly = true)
     public List<Patient> findAll() {
         return patientRepository.findAll();
     }
 
+    /*
+     * Метод findPage возвращает страницу кратких данных пациентов, отсортированных по id или по (name, id).
+     * Курсор — значение nextCursor предыдущей страницы, полученной с тем же порядком сортировки;
+     * при некорректном курсоре выбрасывается IllegalArgumentException.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PatientSummary> findPage(SortOrder sort, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница.
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<PatientSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = sort == SortOrder.NAME
+                    ? patientRepository.findSummariesFirstPageByName(limit)
+                    : patientRepository.findSummariesFirstPageById(limit);
+        } else {
+            String[] key = CursorCodec.decode(cursor, sort == SortOrder.NAME ? 2 : 1);
+            Long id;
+            try {
+                id = Long.valueOf(key[0]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+            rows = sort == SortOrder.NAME
+                    ? patientRepository.findSummariesPageByNameAfter(key[1], id, limit)
+                    : patientRepository.findSummariesPageByIdAfter(id, limit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<PatientSummary> items = rows.subList(0, pageSize);
+        PatientSummary last = items.get(pageSize - 1);
+        // Имя кладётся в конец курсора: оно может содержать символ-разделитель.
+        String nextCursor = sort == SortOrder.NAME
+                ? CursorCodec.encode(last.id(), last.name())
+                : CursorCodec.encode(last.id());
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    /*
+     * Метод isSearchReady возвращает false, пока поисковый индекс строится при старте приложения.
+     */
+    public boolean isSearchReady() {
+        return searchIndex.isLoaded();
+    }
+
+    /*
+     * Метод search ищет пациентов по имени (по префиксу и с учётом опечаток) в поисковом индексе в памяти.
+     */
+    public SearchPage<PatientSummary> search(String query, int page, int size) {
+        return searchIndex.search(query, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE));
+    }
+
     /*
      * Метод findById ищет пациента по идентификатору.
      * Если пациент не найден, возвращается null.
      */
+    @Transactional(readOnly = true)
     public Patient findById(Long id) {
         log.info("Finding patient with id: {}", id);
         return patientRepository.findById(id).orElse(null);
@@ -47,10 +163,13 @@ public class PatientService {
      * Метод save сохраняет или обновляет данные пациента.
      */
     public Patient save(Patient patient) {
-        log.info("Saving patient: {}", patient);
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        // В лог попадает только идентификатор: персональные данные не пишутся, а toString не вызывается.
+        log.info("Saved patient with id: {}", saved.getId());
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public Long getUserIdByPatientId(Long patientId) {
         return userRepository.findUserIdByPatientId(patientId)
                 .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден для пациента с id: " + patientId));
@@ -63,4 +182,157 @@ public class PatientService {
         log.info("Deleting patient with id: {}", id);
         patientRepository.deleteById(id);
     }
+
+    /*
+     * Метод deletePatientCascade удаляет пациента вместе со всеми его записями и связанным пользователем.
+     * Если у пациента не больше medical.purge.chunk-size записей, всё выполняется в одной транзакции тремя
+     * SQL-операторами DELETE, без загрузки записей в память. Большая история удаляется так же, как при фоновом
+     * удалении (сначала пользователь, затем записи порциями в коротких транзакциях, затем пациент), но в потоке
+     * запроса: транзакция, пишущая журнал синхронизации, должна завершиться за medical.sync.settle-delay
+     * (см. AppointmentChangeLog), иначе клиенты синхронизации могут пропустить удаления.
+     * Возвращает false, если пациент не найден.
+     */
+    public boolean deletePatientCascade(Long patientId) {
+        Cascade cascade = transactionTemplate.execute(status -> {
+            if (!patientRepository.existsById(patientId)) {
+                return Cascade.NOT_FOUND;
+            }
+            if (appointmentRepository.findIdsByPatientId(patientId, Limit.of(purgeChunkSize + 1)).size() > purgeChunkSize) {
+                // Доступ отзывается сразу, записи удаляются порциями после фиксации.
+                deleteUserOfPatient(patientId);
+                return Cascade.CHUNKED;
+            }
+            // Удаления попадают в журнал синхронизации до массового удаления, пока записи ещё можно прочитать.
+            changeLog.recordPatientDeleted(patientId);
+            int appointments = appointmentRepository.deleteByPatientId(patientId);
+            // Массовое удаление не вызывает обработчики сущностей, поэтому индекс обновляется явно.
+            calendarIndex.removePatient(patientId);
+            deleteUserOfPatient(patientId);
+            patientRepository.deleteById(patientId);
+            log.info("Deleted patient with id: {} ({} appointments)", patientId, appointments);
+            return Cascade.DELETED;
+        });
+        if (cascade == Cascade.CHUNKED) {
+            deleteInChunks(patientId);
+        }
+        return cascade != Cascade.NOT_FOUND;
+    }
+
+    // Результат первой транзакции каскадного удаления.
+    private enum Cascade {
+        NOT_FOUND, DELETED, CHUNKED
+    }
+
+    /*
+     * Метод deleteUserCascade удаляет пользователя по идентификатору, а если к нему привязан пациент —
+     * то и пациента со всеми его записями (см. deletePatientCascade).
+     * Возвращает false, если пользователь не найден.
+     * Пациент удаляется вне транзакции поиска пользователя: большая история удаляется несколькими транзакциями.
+     */
+    public boolean deleteUserCascade(Long userId) {
+        Optional<Long> patientId = transactionTemplate.execute(status -> {
+            Optional<User> user = userRepository.findById(userId);
+            if (user.isEmpty()) {
+                return null;
+            }
+            Patient patient = user.get().getPatient();
+            if (patient == null) {
+                userRepository.delete(user.get());
+                principalCache.invalidate(user.get().getUsername());
+            }
+            return Optional.ofNullable(patient).map(Patient::getId);
+        });
+        if (patientId == null) {
+            return false;
+        }
+        return patientId.isEmpty() || deletePatientCascade(patientId.get());
+    }
+
+    /*
+     * Метод purgePatientAsync запускает фоновое удаление пациента с очень большой историей.
+     * Синхронно (в рамках запроса) удаляется только связанный пользователь, чтобы доступ пропал сразу.
+     * Записи затем удаляются в фоне порциями по medical.purge.chunk-size, каждая порция — в своей короткой
+     * транзакции, после чего удаляется сам пациент.
+     * Возвращает false, если пациент не найден. Если очередь фоновых удалений заполнена, выбрасывается
+     * TaskRejectedException: пользователь к этому моменту уже удалён, а записи и пациент остаются,
+     * и повторный вызов ставит удаление в очередь заново.
+     */
+    public boolean purgePatientAsync(Long patientId) {
+        Boolean exists = transactionTemplate.execute(status -> {
+            if (!patientRepository.existsById(patientId)) {
+                return false;
+            }
+            deleteUserOfPatient(patientId);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(exists)) {
+            return false;
+        }
+        if (purgesInProgress.add(patientId)) {
+            try {
+                purgeExecutor.execute(() -> purgeInChunks(patientId));
+            } catch (TaskRejectedException ex) {
+                // Иначе пациент навсегда остался бы в purgesInProgress, и повторные удаления молча пропускались бы.
+                purgesInProgress.remove(patientId);
+                log.warn("Purge queue is full, purge of patient with id: {} rejected", patientId);
+                throw ex;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Удаляет пользователя, связанного с пациентом, и сбрасывает его запись в кэше аутентификации.
+     */
+    private void deleteUserOfPatient(Long patientId) {
+        userRepository.findUsernameByPatientId(patientId).ifPresent(principalCache::invalidate);
+        userRepository.deleteByPatientId(patientId);
+    }
+
+    /*
+     * Фоновое поэтапное удаление: ошибка только записывается в журнал, повторный вызов продолжает удаление.
+     */
+    private void purgeInChunks(Long patientId) {
+        try {
+            deleteInChunks(patientId);
+        } catch (RuntimeException ex) {
+            log.error("Failed to purge patient with id: {}", patientId, ex);
+        } finally {
+            purgesInProgress.remove(patientId);
+        }
+    }
+
+    /*
+     * Поэтапное удаление записей пациента и затем самого пациента.
+     */
+    private void deleteInChunks(Long patientId) {
+        long deleted = 0;
+        List<Long> ids;
+        do {
+            ids = transactionTemplate.execute(status -> {
+                List<Long> chunk = appointmentRepository.findIdsByPatientId(patientId, Limit.of(purgeChunkSize));
+                if (!chunk.isEmpty()) {
+                    changeLog.recordDeletedByIds(chunk);
+                    appointmentRepository.deleteAllByIdInBatch(chunk);
+                    // Из календаря порция убирается после фиксации: при откате записи в нём остаются.
+                    calendarIndex.removeAll(patientId, chunk);
+                }
+                return chunk;
+            });
+            deleted += ids.size();
+            log.debug("Purged {} appointments of patient with id: {}", deleted, patientId);
+        } while (ids.size() == purgeChunkSize);
+
+        // Финальная транзакция удаляет записи, созданные во время удаления, пользователя (внешний ключ
+        // fk_users_patient не даст удалить пациента, если пользователь был привязан к нему после отзыва доступа)
+        // и самого пациента.
+        transactionTemplate.executeWithoutResult(status -> {
+            changeLog.recordPatientDeleted(patientId);
+            appointmentRepository.deleteByPatientId(patientId);
+            calendarIndex.removePatient(patientId);
+            deleteUserOfPatient(patientId);
+            patientRepository.deleteById(patientId);
+        });
+        log.info("Purged patient with id: {} ({} appointments)", patientId, deleted);
+    }
 }
@@ -0,0 +1,56 @@
+package de.medical.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * SlotReservations — резервирование слотов на время транзакции, создающей запись.
+ *
+ * Резерв ставится без блокировок (putIfAbsent по началу слота): из параллельных запросов на один слот
+ * продолжает только первый, остальные сразу получают отказ, не дожидаясь базы данных и не удерживая её соединения.
+ * Запросы на разные слоты друг друга не ждут. Резерв снимается по завершении транзакции (фиксации или отката).
+ *
+ * Резерв действует в пределах одного экземпляра приложения. Окончательную гарантию даёт уникальное
+ * ограничение uk_appointment_date_time в базе данных: оно срабатывает и для записей, созданных
+ * другими экземплярами, и для слотов, занятых уже зафиксированными записями.
+ */
+@Component
+public class SlotReservations {
+
+    private final ConcurrentMap<LocalDateTime, Boolean> reserved = new ConcurrentHashMap<>(); // Слоты, бронируемые сейчас.
+    private final Counter conflicts;                                                          // Отказы из-за параллельного бронирования.
+
+    public SlotReservations(MeterRegistry meterRegistry) {
+        this.conflicts = Counter.builder("appointment.slot.conflicts")
+                .description("Bookings rejected because the same slot was being booked concurrently")
+                .register(meterRegistry);
+    }
+
+    /*
+     * Метод tryReserve резервирует слот до конца текущей транзакции.
+     * Возвращает false, если слот уже бронируется другим запросом. Должен вызываться внутри транзакции.
+     */
+    public boolean tryReserve(LocalDateTime slot) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Slot reservation requires an active transaction");
+        }
+        if (reserved.putIfAbsent(slot, Boolean.TRUE) != null) {
+            conflicts.increment();
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                reserved.remove(slot);
+            }
+        });
+        return true;
+    }
+}
@@ -4,8 +4,10 @@ import de.medical.app.model.Patient;
 import de.medical.app.model.User;
 import de.medical.app.repository.PatientRepository;
 import de.medical.app.repository.UserRepository;
+import de.medical.app.security.PrincipalCache;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 
@@ -22,19 +24,24 @@ public class UserService {
     private final UserRepository userRepository;         // Репозиторий для работы с данными пользователей.
     private final PatientRepository patientRepository;       // Репозиторий для работы с данными пациентов.
     private final BCryptPasswordEncoder passwordEncoder;     // Компонент для шифрования паролей.
+    private final PrincipalCache principalCache;             // Кэш данных аутентифицированных пользователей.
 
     // Конструктор для внедрения зависимостей.
-    public UserService(UserRepository userRepository, PatientRepository patientRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PatientRepository patientRepository, BCryptPasswordEncoder passwordEncoder,
+                       PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.patientRepository = patientRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     /*
      * Метод registerUser выполняет регистрацию нового пользователя.
      * Он создает объект пациента, сохраняет его, затем создает объект пользователя,
      * шифрует пароль и привязывает пациента к пользователю перед сохранением.
+     * Пациент и пользователь сохраняются в одной транзакции.
      */
+    @Transactional
     public User registerUser(String username, String rawPassword, String name, LocalDate birthDate) {
         // Создаем объект пациента и устанавливаем его данные.
         Patient patient = new Patient();
@@ -50,8 +57,10 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(rawPassword));
         user.setRole("ROLE_USER"); // Устанавливаем роль пользователя.
         user.setPatient(patient);  // Привязываем созданного пациента к пользователю.
-        // Сохраняем пользователя в базе данных.
-        return userRepository.save(user);
+        // Сохраняем пользователя в базе данных и сбрасываем возможную устаревшую запись в кэше.
+        User saved = userRepository.save(user);
+        principalCache.invalidate(username);
+        return saved;
     }
 
     /*
@@ -66,12 +75,14 @@ public class UserService {
      * @param username имя пользователя для проверки
      * @return true, если пользователь существует, иначе false
      */
+    @Transactional // Проверка выполняется на основной базе: по её результату решается, создавать ли пользователя
     public boolean existsByUsername(String username) {
         return userRepository.findByUsername(username)!=null;
     }
 
     public void deleteUser(User user) {
         userRepository.delete(user);
+        principalCache.invalidate(user.getUsername());
     }
 
 }
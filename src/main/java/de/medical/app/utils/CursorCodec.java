@@ -0,0 +1,51 @@
+package de.medical.app.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * CursorCodec кодирует и декодирует курсоры для keyset-пагинации.
+ * Курсор — это непрозрачная для клиента строка (Base64 URL-safe), внутри которой
+ * хранятся значения ключа сортировки последней отданной записи, разделённые символом '|'.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /*
+     * Метод encode упаковывает значения ключа в строку курсора.
+     */
+    public static String encode(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(parts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Метод decode распаковывает курсор и проверяет количество значений.
+     * Последнее значение может содержать разделитель, поэтому произвольный текст (например, имя) кладётся в конец.
+     * При повреждённом курсоре выбрасывается IllegalArgumentException.
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+        String[] parts = raw.split("\\" + SEPARATOR, expectedParts);
+        if (parts.length != expectedParts) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return parts;
+    }
+}
@@ -2,7 +2,12 @@ package de.medical.app.utils;
 
 import de.medical.app.model.*;
 import de.medical.app.repository.*;
-import jakarta.annotation.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.*;
+import org.springframework.boot.context.event.*;
+import org.springframework.context.event.*;
+import org.springframework.core.task.*;
 import org.springframework.security.crypto.bcrypt.*;
 import org.springframework.stereotype.*;
 
@@ -10,24 +15,59 @@ import java.time.*;
 
 
 
+    /*
+     * DataInit создаёт демонстрационных пользователей, пациентов и записи.
+     * По умолчанию данные создаются до события ApplicationReadyEvent (как ApplicationRunner).
+     * При medical.seed.async=true (профиль fast-start) создание выполняется в фоновом потоке после готовности приложения,
+     * чтобы хэширование паролей BCrypt и последовательные сохранения не задерживали приём первых запросов.
+     */
     @Component
-    public class DataInit {
+    @Slf4j
+    public class DataInit implements ApplicationRunner {
 
         private final UserRepository userRepository;
         private final PatientRepository patientRepository;
         private final AppointmentRepository appointmentRepository; // Новое поле
         private final BCryptPasswordEncoder passwordEncoder;
+        private final TaskExecutor seedExecutor; // Пул для фонового создания данных
+        private final boolean async; // Создавать данные в фоне после готовности приложения
 
         // Изменённый конструктор с добавлением AppointmentRepository
         public DataInit(UserRepository userRepository, PatientRepository patientRepository,
-                        AppointmentRepository appointmentRepository, BCryptPasswordEncoder passwordEncoder) {
+                        AppointmentRepository appointmentRepository, BCryptPasswordEncoder passwordEncoder,
+                        @Qualifier("seedExecutor") TaskExecutor seedExecutor,
+                        @Value("${medical.seed.async:false}") boolean async) {
             this.userRepository = userRepository;
             this.patientRepository = patientRepository;
             this.appointmentRepository = appointmentRepository;
             this.passwordEncoder = passwordEncoder;
+            this.seedExecutor = seedExecutor;
+            this.async = async;
+        }
+
+        @Override
+        public void run(ApplicationArguments args) {
+            if (!async) {
+                init();
+            }
+        }
+
+        /*
+         * В асинхронном режиме данные создаются после ApplicationReadyEvent в отдельном потоке.
+         * Поисковый и календарный индексы к этому моменту могут ещё перестраиваться:
+         * новые сущности попадают в них через слушатели сущностей и журнал перестроения.
+         */
+        @EventListener(ApplicationReadyEvent.class)
+        public void initAsync() {
+            if (async) {
+                seedExecutor.execute(() -> {
+                    long start = System.currentTimeMillis();
+                    init();
+                    log.info("Demo data initialized in background in {} ms", System.currentTimeMillis() - start);
+                });
+            }
         }
 
-        @PostConstruct
         public void init() {
             if(userRepository.findByUsername("admin") == null){
                 User admin = new User();
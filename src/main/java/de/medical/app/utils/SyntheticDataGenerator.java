@@ -0,0 +1,357 @@
+package de.medical.app.utils;
+
+import com.github.javafaker.Faker;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * SyntheticDataGenerator заполняет базу данных синтетическими пациентами, пользователями и записями
+ * для нагрузочного тестирования (включается свойством medical.seed.synthetic.enabled=true).
+ *
+ * Распределения:
+ * - имена — немецкие имена и фамилии javafaker;
+ * - возраст — 20% детей (0–17 лет), остальные взрослые с нормальным распределением вокруг 50 лет;
+ * - количество записей на пациента — экспоненциальное со средним appointments / patients
+ *   (у большинства пациентов несколько записей, у немногих — длинная история);
+ * - время записей — рабочие дни и часы расписания (medical.schedule.*) в окне [now - history, now + horizon].
+ *
+ * Генерация разбита на порции по chunk-size пациентов, которые обрабатываются параллельно.
+ * Всё содержимое выводится из seed и номера пациента или записи, а не из идентификаторов последовательностей
+ * (порции получают их в порядке гонки потоков): при том же seed и тех же параметрах имена, логины
+ * (synthetic1 … synthetic<N>), даты рождения и расписание совпадают при любом числе потоков; различаться
+ * могут только идентификаторы в базе данных. Для этого число записей каждой порции вычисляется заранее,
+ * и порция знает порядковый номер своей первой записи.
+ * Каждая порция записывается в своей транзакции пакетными INSERT через JdbcTemplate, минуя Hibernate.
+ * Идентификаторы берутся из тех же последовательностей, что и у сущностей, блоками по ID_BLOCK значений,
+ * поэтому после генерации приложение продолжает выдавать идентификаторы без конфликтов.
+ *
+ * Все синтетические пользователи получают один пароль (хэш вычисляется один раз).
+ * Десятки миллионов записей не помещаются в рабочие слоты по одной, поэтому на слот приходится несколько
+ * синтетических записей: время записи — начало слота плюс несколько миллисекунд, зависящих от её номера,
+ * что сохраняет уникальность времени записи. Слот с синтетическими записями считается занятым:
+ * и календарный индекс, и проверка при бронировании учитывают все записи внутри интервала слота.
+ *
+ * Генерация выполняется до события ApplicationReadyEvent, поэтому календарный и поисковый индексы
+ * строятся уже по сгенерированным данным.
+ */
+@Component
+@ConditionalOnProperty(name = "medical.seed.synthetic.enabled", havingValue = "true")
+@Slf4j
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    // Размер блока значений последовательности (совпадает с allocationSize сущностей).
+    private static final int ID_BLOCK = 50;
+    // Множитель для перемешивания слотов по номеру записи (простое число).
+    private static final long SLOT_STRIDE = 7_919;
+    private static final String USERNAME_PREFIX = "synthetic";
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BCryptPasswordEncoder passwordEncoder;
+
+    private final int patients;            // Количество пациентов (и пользователей).
+    private final long appointments;       // Ожидаемое общее количество записей.
+    private final int chunkSize;           // Количество пациентов в одной порции (транзакции).
+    private final int threads;             // Количество потоков генерации.
+    private final long seed;               // Начальное значение генератора случайных чисел.
+    private final String password;         // Пароль всех синтетических пользователей.
+    private final Period history;          // Глубина истории записей.
+    private final Period horizon;          // Насколько далеко в будущее создаются записи.
+    private final LocalTime dayStart;
+    private final LocalTime dayEnd;
+    private final Duration slotLength;
+    private final Set<DayOfWeek> workingDays;
+
+    // Конструктор для внедрения зависимостей.
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  EntityManagerFactory entityManagerFactory, BCryptPasswordEncoder passwordEncoder,
+                                  @Value("${medical.seed.synthetic.patients:10000}") int patients,
+                                  @Value("${medical.seed.synthetic.appointments:200000}") long appointments,
+                                  @Value("${medical.seed.synthetic.chunk-size:1000}") int chunkSize,
+                                  @Value("${medical.seed.synthetic.threads:0}") int threads,
+                                  @Value("${medical.seed.synthetic.seed:42}") long seed,
+                                  @Value("${medical.seed.synthetic.password:synthetic}") String password,
+                                  @Value("${medical.seed.synthetic.history:P2Y}") Period history,
+                                  @Value("${medical.seed.synthetic.horizon:P3M}") Period horizon,
+                                  @Value("${medical.schedule.day-start:08:00}") LocalTime dayStart,
+                                  @Value("${medical.schedule.day-end:18:00}") LocalTime dayEnd,
+                                  @Value("${medical.schedule.slot-length:30m}") Duration slotLength,
+                                  @Value("${medical.schedule.working-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+                                  Set<DayOfWeek> workingDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.passwordEncoder = passwordEncoder;
+        this.patients = patients;
+        this.appointments = appointments;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.seed = seed;
+        this.password = password;
+        this.history = history;
+        this.horizon = horizon;
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+        this.slotLength = slotLength;
+        this.workingDays = workingDays;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (patients <= 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) > 0 FROM users WHERE username LIKE ?", Boolean.class, USERNAME_PREFIX + "%"))) {
+            log.info("Synthetic data already present, skipping generation");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<LocalDateTime> slots = slotStarts();
+        if (slots.isEmpty()) {
+            throw new IllegalStateException("Synthetic data window contains no working slots");
+        }
+        double meanAppointments = (double) appointments / patients;
+        int chunks = (patients + chunkSize - 1) / chunkSize;
+        // Порядковый номер первой записи каждой порции: число записей пациента зависит только от seed порции.
+        long[] firstAppointment = new long[chunks + 1];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            Random counts = visitRandom(chunkSeed(chunk));
+            long total = 0;
+            for (int i = 0; i < chunkCount(chunk); i++) {
+                total += visits(counts, meanAppointments);
+            }
+            firstAppointment[chunk + 1] = firstAppointment[chunk] + total;
+        }
+        // Сколько записей приходится на один слот; каждая получает свой сдвиг в миллисекундах.
+        long perSlot = (firstAppointment[chunks] + slots.size() - 1) / slots.size();
+        if (perSlot >= slotLength.toMillis()) {
+            throw new IllegalStateException("Too many synthetic appointments (" + firstAppointment[chunks] + ") for "
+                    + slots.size() + " slots; increase medical.seed.synthetic.history");
+        }
+
+        Generation generation = new Generation(slots, passwordEncoder.encode(password),
+                meanAppointments, sequenceQuery("patient_seq"),
+                sequenceQuery("users_seq"), sequenceQuery("appointment_seq"));
+        log.info("Generating {} synthetic patients and ~{} appointments in {} chunks on {} threads",
+                patients, appointments, chunks, threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "synthetic-data-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int index = chunk;
+                futures.add(executor.submit(() -> writeChunk(generation, index, firstAppointment[index], start)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Данные записаны в обход Hibernate, поэтому кэш второго уровня мог устареть.
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+
+        long elapsedMillis = Math.max(1, System.currentTimeMillis() - start);
+        log.info("Synthetic data generated in {} ms: {} patients, {} appointments ({} rows/s)",
+                elapsedMillis, generation.patients.get(), generation.appointments.get(),
+                (2 * generation.patients.get() + generation.appointments.get()) * 1000 / elapsedMillis);
+    }
+
+    /*
+     * Общее состояние генерации, разделяемое порциями.
+     */
+    private static final class Generation {
+        final List<LocalDateTime> slots;
+        final String passwordHash;
+        final double meanAppointments;
+        final String patientSequence;
+        final String userSequence;
+        final String appointmentSequence;
+        final AtomicLong patients = new AtomicLong();
+        final AtomicLong appointments = new AtomicLong();
+
+        Generation(List<LocalDateTime> slots, String passwordHash, double meanAppointments,
+                   String patientSequence, String userSequence, String appointmentSequence) {
+            this.slots = slots;
+            this.passwordHash = passwordHash;
+            this.meanAppointments = meanAppointments;
+            this.patientSequence = patientSequence;
+            this.userSequence = userSequence;
+            this.appointmentSequence = appointmentSequence;
+        }
+    }
+
+    private long chunkSeed(int chunk) {
+        return seed * 1_000_003L + chunk;
+    }
+
+    private int chunkCount(int chunk) {
+        return Math.min(chunkSize, patients - chunk * chunkSize);
+    }
+
+    // Отдельный генератор для числа записей, чтобы его можно было повторить при подсчёте записей порции.
+    private static Random visitRandom(long chunkSeed) {
+        return new Random(~chunkSeed);
+    }
+
+    // Число записей пациента: экспоненциальное распределение со средним mean.
+    private static int visits(Random random, double mean) {
+        return (int) (-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    /*
+     * Генерирует и записывает одну порцию пациентов с пользователями и записями в одной транзакции.
+     * Логин пациента — его порядковый номер, время записи — функция её порядкового номера (начиная с firstAppointment).
+     */
+    private void writeChunk(Generation generation, int chunk, long firstAppointment, long start) {
+        int count = chunkCount(chunk);
+        Random random = new Random(chunkSeed(chunk));
+        Random visitRandom = visitRandom(chunkSeed(chunk));
+        Faker faker = new Faker(Locale.GERMAN, random);
+        LocalDate today = LocalDate.now();
+        int slotCount = generation.slots.size();
+        // Номер записи k переходит в слот (k * stride) mod slotCount: при взаимно простых stride и slotCount
+        // это перестановка, поэтому пара (слот, сдвиг k / slotCount) у каждой записи своя.
+        long stride = slotCount % SLOT_STRIDE == 0 ? 1 : SLOT_STRIDE;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            IdBlocks patientIds = new IdBlocks(generation.patientSequence);
+            IdBlocks userIds = new IdBlocks(generation.userSequence);
+            IdBlocks appointmentIds = new IdBlocks(generation.appointmentSequence);
+
+            List<Object[]> patientRows = new ArrayList<>(count);
+            List<Object[]> userRows = new ArrayList<>(count);
+            List<Object[]> appointmentRows = new ArrayList<>((int) (count * generation.meanAppointments) + 16);
+            long ordinal = firstAppointment;
+            for (int i = 0; i < count; i++) {
+                long patientId = patientIds.next();
+                String name = faker.name().firstName() + " " + faker.name().lastName();
+                patientRows.add(new Object[]{patientId, name, Date.valueOf(birthDate(random, today))});
+                userRows.add(new Object[]{userIds.next(), username(chunk * chunkSize + i + 1), generation.passwordHash,
+                        "ROLE_USER", patientId});
+
+                int visits = visits(visitRandom, generation.meanAppointments);
+                for (int v = 0; v < visits; v++, ordinal++) {
+                    // Перемешиваем слоты по номеру записи и различаем записи одного слота сдвигом в миллисекундах.
+                    LocalDateTime slot = generation.slots.get((int) Math.floorMod(ordinal * stride, (long) slotCount));
+                    LocalDateTime dateTime = slot.plusNanos((ordinal / slotCount + 1) * 1_000_000L);
+                    appointmentRows.add(new Object[]{appointmentIds.next(), Timestamp.valueOf(dateTime), patientId});
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO patient (id, name, birth_date, version, appointments_version) VALUES (?, ?, ?, 0, 0)", patientRows);
+            jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, role, patient_id) VALUES (?, ?, ?, ?, ?)", userRows);
+            jdbcTemplate.batchUpdate("INSERT INTO appointment (id, date_time, patient_id, version) VALUES (?, ?, ?, 0)", appointmentRows);
+            generation.appointments.addAndGet(appointmentRows.size());
+        });
+
+        long done = generation.patients.addAndGet(count);
+        if (done % (chunkSize * 50L) < count) {
+            long elapsedMillis = Math.max(1, System.currentTimeMillis() - start);
+            log.info("Synthetic data: {}/{} patients, {} appointments ({} patients/s)",
+                    done, patients, generation.appointments.get(), done * 1000 / elapsedMillis);
+        }
+    }
+
+    /*
+     * Дата рождения: 20% детей, остальные — взрослые с возрастом около 50 ± 18 лет (от 18 до 100).
+     */
+    private static LocalDate birthDate(Random random, LocalDate today) {
+        int age = random.nextDouble() < 0.2
+                ? random.nextInt(18)
+                : (int) Math.max(18, Math.min(100, Math.round(50 + 18 * random.nextGaussian())));
+        return today.minusYears(age).minusDays(random.nextInt(365));
+    }
+
+    /*
+     * Начала всех рабочих слотов в окне [now - history, now + horizon].
+     */
+    private List<LocalDateTime> slotStarts() {
+        LocalDate today = LocalDate.now();
+        long slotsPerDay = Duration.between(dayStart, dayEnd).dividedBy(slotLength);
+        List<LocalDateTime> slots = new ArrayList<>();
+        for (LocalDate day = today.minus(history); day.isBefore(today.plus(horizon)); day = day.plusDays(1)) {
+            if (!workingDays.contains(day.getDayOfWeek())) {
+                continue;
+            }
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                slots.add(day.atTime(dayStart).plus(slotLength.multipliedBy(slot)));
+            }
+        }
+        return slots;
+    }
+
+    private static String username(long patientNumber) {
+        return USERNAME_PREFIX + patientNumber;
+    }
+
+    /*
+     * SQL-запрос следующего значения последовательности в диалекте текущей базы данных.
+     */
+    private String sequenceQuery(String sequence) {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSequenceNextValString(sequence);
+    }
+
+    /*
+     * Выдаёт идентификаторы из последовательности блоками по ID_BLOCK, так же как pooled-оптимизатор Hibernate:
+     * значение последовательности v закрепляет за вызывающим диапазон [v - ID_BLOCK + 1, v] (но не меньше 1).
+     */
+    private final class IdBlocks {
+        private final String query;
+        private long next;
+        private long last = -1;
+
+        IdBlocks(String query) {
+            this.query = query;
+        }
+
+        long next() {
+            if (next > last) {
+                Long value = jdbcTemplate.queryForObject(query, Long.class);
+                last = value;
+                next = Math.max(1, value - ID_BLOCK + 1);
+            }
+            return next++;
+        }
+    }
+}
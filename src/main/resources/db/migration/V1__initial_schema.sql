@@ -0,0 +1,50 @@
+-- Исходная схема базы данных (раньше создавалась Hibernate через ddl-auto=update).
+-- Схема управляется Flyway; Hibernate при старте только проверяет соответствие сущностям (ddl-auto=validate).
+
+-- Последовательности идентификаторов: Hibernate выделяет значения блоками по 50 (allocationSize = 50).
+CREATE SEQUENCE patient_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE appointment_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE patient (
+    id         BIGINT       NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    birth_date DATE         NOT NULL,
+    CONSTRAINT pk_patient PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id         BIGINT       NOT NULL,
+    username   VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    role       VARCHAR(255) NOT NULL,
+    patient_id BIGINT,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT fk_users_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+);
+
+CREATE TABLE appointment (
+    id         BIGINT       NOT NULL,
+    date_time  TIMESTAMP(6) NOT NULL,
+    patient_id BIGINT,
+    CONSTRAINT pk_appointment PRIMARY KEY (id),
+    CONSTRAINT fk_appointment_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+);
+
+-- Вход по логину (UserRepository.findByUsername) и проверка занятых имён при импорте.
+CREATE UNIQUE INDEX uk_users_username ON users (username);
+
+-- Пользователь пациента (findUserIdByPatientId, findUsernameByPatientId, deleteByPatientId).
+-- Ключ строки (id) хранится в индексе, поэтому findUserIdByPatientId читает только индекс.
+CREATE UNIQUE INDEX uk_users_patient_id ON users (patient_id);
+
+-- Keyset-пагинация пациентов по (name, id); birth_date добавлен, чтобы проекция PatientSummary читалась из индекса.
+CREATE INDEX idx_patient_name_id ON patient (name, id, birth_date);
+
+-- Записи пациента по (date_time, id): страницы пациента, удаление и выборка id записей пациента.
+-- Все столбцы таблицы входят в индекс, поэтому проекции CalendarEntry читаются только из индекса.
+CREATE INDEX idx_appointment_patient_date_time ON appointment (patient_id, date_time, id);
+
+-- Все записи по (date_time, id): страницы администратора и построение календарного индекса;
+-- patient_id добавлен, чтобы проекция CalendarEntry читалась только из индекса.
+CREATE INDEX idx_appointment_date_time ON appointment (date_time, id, patient_id);
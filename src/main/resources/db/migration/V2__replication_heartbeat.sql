@@ -0,0 +1,9 @@
+-- Метка времени, которую ReplicaLagMonitor периодически записывает на основной базе.
+-- Значение, прочитанное с реплики, показывает, насколько реплика отстаёт от основной базы.
+CREATE TABLE replication_heartbeat (
+    id          INT    NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    CONSTRAINT pk_replication_heartbeat PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, 0);
@@ -0,0 +1,7 @@
+-- Версии сущностей для оптимистической блокировки (@Version) и ETag.
+ALTER TABLE patient ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE appointment ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+-- Агрегированная версия списка записей пациента: увеличивается при создании и удалении любой его записи.
+-- Условный GET списка записей пациента проверяется одной выборкой по первичному ключу patient.
+ALTER TABLE patient ADD COLUMN appointments_version BIGINT DEFAULT 0 NOT NULL;
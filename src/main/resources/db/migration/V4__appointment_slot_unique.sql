@@ -0,0 +1,7 @@
+-- Одна запись на слот: записи создаются только на начало слота, поэтому уникальность времени записи
+-- исключает двойное бронирование при параллельных запросах и на нескольких экземплярах приложения.
+-- Индекс также используется проверкой занятости слота (AppointmentRepository.existsInSlot).
+-- Индекс гарантирует уникальность только точного времени начала слота. Записи внутри слота не с его начала
+-- (например, синтетические со смещением в миллисекунды) отсекает лишь проверка existsInSlot без блокировок,
+-- поэтому для них гарантии между экземплярами приложения нет.
+CREATE UNIQUE INDEX uk_appointment_date_time ON appointment (date_time);
@@ -0,0 +1,30 @@
+-- Журнал изменений записей для инкрементальной синхронизации клиентов (GET /appointment/changes).
+-- Номер изменения выдаёт последовательность appointment_change_seq прямо в операторе INSERT, поэтому транзакции,
+-- меняющие записи, не ждут друг друга. Номера фиксируются не по порядку, поэтому читатели видят журнал только
+-- до stable_version — номера, ниже которого не осталось незафиксированных изменений (его продвигает
+-- AppointmentChangeLog.advanceStableVersion).
+-- pruned_version — наибольший номер, удалённый из журнала по сроку хранения; более старые токены устарели.
+CREATE SEQUENCE appointment_change_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE appointment_change_counter (
+    id             INT    NOT NULL,
+    stable_version BIGINT NOT NULL,
+    pruned_version BIGINT NOT NULL,
+    CONSTRAINT pk_appointment_change_counter PRIMARY KEY (id)
+);
+
+INSERT INTO appointment_change_counter (id, stable_version, pruned_version) VALUES (1, 0, 0);
+
+-- Записи журнала не ссылаются на appointment и patient внешними ключами: удаления хранятся после удаления строк.
+CREATE TABLE appointment_change (
+    change_version BIGINT      NOT NULL,
+    appointment_id BIGINT      NOT NULL,
+    patient_id     BIGINT      NOT NULL,
+    change_type    VARCHAR(16) NOT NULL,
+    date_time      TIMESTAMP,
+    changed_at     TIMESTAMP   NOT NULL,
+    CONSTRAINT pk_appointment_change PRIMARY KEY (change_version, appointment_id)
+);
+
+CREATE INDEX idx_appointment_change_patient ON appointment_change (patient_id, change_version, appointment_id);
+CREATE INDEX idx_appointment_change_changed_at ON appointment_change (changed_at);
@@ -0,0 +1,230 @@
+package de.medical.app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.service.AvailabilityService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Нагрузочная проверка бронирования слотов: много потоков одновременно создают записи через HTTP.
+ * Проверяется, что на каждый слот создаётся ровно одна запись, а бронирования разных слотов не мешают друг другу.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AppointmentBookingStressTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // Записи теста создаются в далёком будущем, чтобы не пересекаться с демонстрационными данными.
+    private static final LocalDateTime WINDOW_START = LocalDateTime.of(2040, 1, 2, 0, 0);
+    private static final int THREADS = 32;
+    private static final int CONTENDED_SLOTS = 50;
+    private static final int ATTEMPTS_PER_SLOT = 8;
+    private static final int DISTINCT_SLOTS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<Booker> bookers = new ArrayList<>();
+    private String adminToken;
+    private List<LocalDateTime> slots;
+
+    // Пользователь, от имени которого создаются записи, и его пациент.
+    private record Booker(String token, long patientId) {
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = login("admin", "admin123");
+        bookers.add(new Booker(login("user1", "user111"), patientId("user1")));
+        bookers.add(new Booker(login("user2", "user222"), patientId("user2")));
+        slots = new ArrayList<>();
+        for (LocalDateTime time = WINDOW_START; slots.size() < CONTENDED_SLOTS + DISTINCT_SLOTS; time = time.plusMinutes(availabilityService.getSlotMinutes())) {
+            if (availabilityService.isSlotStart(time)) {
+                slots.add(time);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        // Удаление через API, чтобы календарный индекс и версии списков записей оставались согласованными.
+        for (Long id : jdbcTemplate.queryForList("SELECT id FROM appointment WHERE date_time >= ?", Long.class,
+                Timestamp.valueOf(WINDOW_START))) {
+            send(HttpRequest.newBuilder(uri("/appointment/" + id)).header("Authorization", "Bearer " + adminToken).DELETE());
+        }
+    }
+
+    /*
+     * Каждый слот одновременно бронируют ATTEMPTS_PER_SLOT запросов от разных пользователей:
+     * ровно один получает 200, остальные — 409, в базе на слот приходится одна запись.
+     */
+    @Test
+    void concurrentBookingsOfSameSlotCreateExactlyOneAppointment() throws Exception {
+        List<LocalDateTime> contended = slots.subList(0, CONTENDED_SLOTS);
+        List<LocalDateTime> attempts = new ArrayList<>();
+        for (LocalDateTime slot : contended) {
+            for (int i = 0; i < ATTEMPTS_PER_SLOT; i++) {
+                attempts.add(slot);
+            }
+        }
+        Collections.shuffle(attempts);
+
+        Map<LocalDateTime, AtomicInteger> created = new ConcurrentHashMap<>();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Integer> statuses = runConcurrently(attempts, (slot, status) -> {
+            if (status == 200) {
+                created.computeIfAbsent(slot, s -> new AtomicInteger()).incrementAndGet();
+            } else if (status == 409) {
+                conflicts.incrementAndGet();
+            }
+        });
+
+        assertTrue(statuses.stream().allMatch(status -> status == 200 || status == 409), "Unexpected statuses: " + statuses);
+        assertEquals(CONTENDED_SLOTS, created.size());
+        assertTrue(created.values().stream().allMatch(count -> count.get() == 1), "Slot booked twice: " + created);
+        assertEquals(CONTENDED_SLOTS * (ATTEMPTS_PER_SLOT - 1), conflicts.get());
+        assertEquals(CONTENDED_SLOTS, countInWindow());
+        assertEquals(0, duplicatesInWindow());
+
+        // Слот, занятый уже зафиксированной записью, тоже отклоняется.
+        assertEquals(409, book(bookers.get(0), contended.get(0)));
+    }
+
+    /*
+     * Бронирования разных слотов выполняются параллельно и все завершаются успешно.
+     */
+    @Test
+    void concurrentBookingsOfDifferentSlotsAllSucceed() throws Exception {
+        List<LocalDateTime> distinct = new ArrayList<>(slots.subList(CONTENDED_SLOTS, CONTENDED_SLOTS + DISTINCT_SLOTS));
+        Collections.shuffle(distinct);
+
+        List<Integer> statuses = runConcurrently(distinct, (slot, status) -> {
+        });
+
+        assertTrue(statuses.stream().allMatch(status -> status == 200), "Unexpected statuses: " + statuses);
+        assertEquals(DISTINCT_SLOTS, countInWindow());
+    }
+
+    @Test
+    void bookingOutsideSlotGridIsRejected() throws Exception {
+        assertEquals(400, book(bookers.get(0), slots.get(0).plusMinutes(1)));
+    }
+
+    /*
+     * Запись внутри слота, но не с его начала (так пишет SyntheticDataGenerator), тоже занимает слот.
+     */
+    @Test
+    void slotWithOffsetAppointmentIsTaken() throws Exception {
+        LocalDateTime slot = slots.get(0);
+        jdbcTemplate.update("INSERT INTO appointment (id, date_time, patient_id, version) VALUES (?, ?, ?, 0)",
+                900_000_000_001L, Timestamp.valueOf(slot.plusNanos(3_000_000)), bookers.get(1).patientId());
+
+        assertEquals(409, book(bookers.get(0), slot));
+        assertEquals(200, book(bookers.get(0), slots.get(1)));
+    }
+
+    private interface Outcome {
+        void accept(LocalDateTime slot, int status);
+    }
+
+    // Отправляет все попытки из THREADS потоков одновременно (после общего старта) и возвращает коды ответов.
+    private List<Integer> runConcurrently(List<LocalDateTime> attempts, Outcome outcome) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(attempts.size());
+            for (int i = 0; i < attempts.size(); i++) {
+                LocalDateTime slot = attempts.get(i);
+                Booker booker = bookers.get(i % bookers.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int status = book(booker, slot);
+                    outcome.accept(slot, status);
+                    return status;
+                }));
+            }
+            start.countDown();
+            List<Integer> statuses = new ArrayList<>(futures.size());
+            for (Future<Integer> future : futures) {
+                statuses.add(future.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int book(Booker booker, LocalDateTime slot) throws Exception {
+        String body = JSON.writeValueAsString(Map.of("dateTime", slot.toString(), "patient", Map.of("id", booker.patientId())));
+        return send(HttpRequest.newBuilder(uri("/appointment"))
+                .header("Authorization", "Bearer " + booker.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))).statusCode();
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = JSON.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        assertEquals(200, response.statusCode());
+        return JSON.readTree(response.body()).path("accessToken").asText();
+    }
+
+    private long patientId(String username) {
+        Long id = jdbcTemplate.queryForObject("SELECT patient_id FROM users WHERE username = ?", Long.class, username);
+        assertNotNull(id);
+        return id;
+    }
+
+    private int countInWindow() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointment WHERE date_time >= ?",
+                Integer.class, Timestamp.valueOf(WINDOW_START));
+        return count == null ? 0 : count;
+    }
+
+    private int duplicatesInWindow() {
+        return jdbcTemplate.queryForList("SELECT date_time FROM appointment WHERE date_time >= ? "
+                + "GROUP BY date_time HAVING COUNT(*) > 1", Timestamp.class, Timestamp.valueOf(WINDOW_START)).size();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
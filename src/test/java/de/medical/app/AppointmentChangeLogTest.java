@@ -0,0 +1,392 @@
+package de.medical.app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.dto.AppointmentChange;
+import de.medical.app.dto.AppointmentChanges;
+import de.medical.app.index.AppointmentCalendarIndex;
+import de.medical.app.model.Appointment;
+import de.medical.app.model.Patient;
+import de.medical.app.repository.AppointmentRepository;
+import de.medical.app.repository.PatientRepository;
+import de.medical.app.service.AppointmentChangeLog;
+import de.medical.app.service.AvailabilityService;
+import de.medical.app.service.PatientService;
+import de.medical.app.service.UserService;
+import de.medical.app.utils.CursorCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Проверки журнала синхронизации записей: сброс на снимок по удалённому из журнала и чужому токену,
+ * переход от снимка к журналу, запись удалений пациента (каскадом, в том числе порциями, и фоновым удалением),
+ * фильтрация по пациенту, а также то, что бронирования не ждут друг друга, а незафиксированные изменения
+ * не видны через стабильный номер.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AppointmentChangeLogTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // Записи теста создаются в далёком будущем, чтобы не пересекаться с демонстрационными данными и другими тестами.
+    private static final LocalDateTime WINDOW_START = LocalDateTime.of(2041, 1, 2, 0, 0);
+    private static final AtomicInteger USERNAMES = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private AppointmentChangeLog changeLog;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AppointmentCalendarIndex calendarIndex;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Value("${medical.purge.chunk-size}")
+    private int purgeChunkSize;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<Long> patients = new ArrayList<>();
+    private String adminToken;
+    private LocalDateTime nextSlot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = login("admin", "admin123");
+        nextSlot = WINDOW_START;
+        settleGaps();
+    }
+
+    @AfterEach
+    void tearDown() {
+        patients.forEach(patientService::deletePatientCascade);
+    }
+
+    @Test
+    void prunedAndForeignTokensResetToSnapshot() throws Exception {
+        long patientId = newPatient();
+        long first = book(patientId);
+        changeLog.advanceStableVersion();
+        String token = catchUp(patientId, null).token();
+        long second = book(patientId);
+        settleGaps();
+
+        changeLog.pruneBefore(LocalDateTime.now());
+
+        // Изменения после токена удалены из журнала: клиент получает снимок текущих записей.
+        Sync pruned = catchUp(patientId, token);
+        assertTrue(pruned.reset());
+        assertEquals(List.of(created(first), created(second)), pruned.changes());
+        // Токен дальше стабильного номера (например, другой базы) тоже сбрасывается на снимок.
+        assertTrue(changeLog.findChanges(patientId, CursorCodec.encode("d", 1_000_000_000L, 0), 10).reset());
+        assertThrows(IllegalArgumentException.class, () -> changeLog.findChanges(patientId, "not a token", 10));
+    }
+
+    @Test
+    void snapshotPagesHandOffToChanges() throws Exception {
+        long patientId = newPatient();
+        List<Long> booked = List.of(book(patientId), book(patientId), book(patientId));
+        changeLog.advanceStableVersion();
+
+        AppointmentChanges first = changeLog.findChanges(patientId, null, 2);
+        assertTrue(first.reset());
+        assertTrue(first.more());
+        assertEquals(2, first.changes().size());
+        AppointmentChanges last = changeLog.findChanges(patientId, first.token(), 2);
+        assertFalse(last.more());
+        assertEquals(booked, ids(first.changes(), last.changes()));
+
+        long later = book(patientId);
+        changeLog.advanceStableVersion();
+
+        // После снимка приходят только изменения, зафиксированные позже.
+        AppointmentChanges delta = changeLog.findChanges(patientId, last.token(), 2);
+        assertFalse(delta.reset());
+        assertEquals(List.of(created(later)), delta.changes());
+    }
+
+    @Test
+    void patientDeletionsAreLogged() throws Exception {
+        long cascaded = newPatient();
+        List<Long> cascadedIds = List.of(book(cascaded), book(cascaded));
+        long purged = newPatient();
+        List<Long> purgedIds = List.of(book(purged), book(purged), book(purged));
+        changeLog.advanceStableVersion();
+        String cascadedToken = catchUp(cascaded, null).token();
+        String purgedToken = catchUp(purged, null).token();
+        List<AppointmentChange> cascadedDeletions = deleted(cascadedIds);
+        List<AppointmentChange> purgedDeletions = deleted(purgedIds);
+
+        assertTrue(patientService.deletePatientCascade(cascaded));
+        assertTrue(patientService.purgePatientAsync(purged));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (patientRepository.existsById(purged) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(patientRepository.existsById(purged));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE patient_id IN (?, ?)",
+                Integer.class, cascaded, purged));
+        assertEquals(0, calendarIndex.countRange(purged, WINDOW_START, WINDOW_START.plusDays(30)));
+        changeLog.advanceStableVersion();
+
+        assertEquals(cascadedDeletions, catchUp(cascaded, cascadedToken).changes());
+        assertEquals(purgedDeletions, catchUp(purged, purgedToken).changes());
+    }
+
+    /*
+     * История больше medical.purge.chunk-size удаляется каскадом порциями (каждая — короткая транзакция),
+     * и все удаления попадают в журнал.
+     */
+    @Test
+    void largeCascadeIsDeletedInChunks() throws Exception {
+        long patientId = newPatient();
+        int count = purgeChunkSize * 2 + 1;
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{920_000_000_000L + i, Timestamp.valueOf(WINDOW_START.plusYears(1).plusMinutes(i)), patientId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO appointment (id, date_time, patient_id, version) VALUES (?, ?, ?, 0)", rows);
+        changeLog.advanceStableVersion();
+        String token = catchUp(patientId, null).token();
+
+        assertTrue(patientService.deletePatientCascade(patientId));
+
+        assertFalse(patientRepository.existsById(patientId));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE patient_id = ?", Integer.class, patientId));
+        changeLog.advanceStableVersion();
+        List<AppointmentChange> changes = catchUp(patientId, token).changes();
+        assertEquals(count, changes.size());
+        assertTrue(changes.stream().allMatch(change -> change.type() == AppointmentChange.Type.DELETED));
+    }
+
+    @Test
+    void changesAreFilteredByPatient() throws Exception {
+        long first = newPatient();
+        long second = newPatient();
+        String firstToken = catchUp(first, null).token();
+        String allToken = catchUp(null, null).token();
+
+        long ofFirst = book(first);
+        long ofSecond = book(second);
+        changeLog.advanceStableVersion();
+
+        assertEquals(List.of(created(ofFirst)), catchUp(first, firstToken).changes());
+        // Администратор (patientId = null) получает изменения всех пациентов.
+        List<Long> all = ids(catchUp(null, allToken).changes());
+        assertTrue(all.containsAll(List.of(ofFirst, ofSecond)), "Missing changes: " + all);
+    }
+
+    /*
+     * Транзакция T1 сохранила запись и её изменение в журнале, но ещё не зафиксирована. Бронирование другого слота
+     * через HTTP не ждёт её, а его изменение (с большим номером) не видно клиентам, пока T1 не зафиксируется:
+     * иначе клиент продвинул бы токен за номер T1 и пропустил бы её изменение.
+     */
+    @Test
+    void openTransactionDoesNotBlockBookingsAndHidesLaterChanges() throws Exception {
+        long held = newPatient();
+        long other = newPatient();
+        String token = catchUp(null, null).token();
+        Patient heldPatient = patientRepository.findById(held).orElseThrow();
+        Appointment appointment = Appointment.builder().dateTime(slot()).patient(heldPatient).build();
+
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> transaction = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                appointmentRepository.saveAndFlush(appointment);
+                changeLog.recordCreated(appointment);
+                inserted.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(inserted.await(10, TimeUnit.SECONDS));
+
+            long booked = book(other);
+            changeLog.advanceStableVersion();
+            assertTrue(catchUp(null, token).changes().isEmpty(), "Change visible before the earlier transaction committed");
+
+            release.countDown();
+            transaction.get(10, TimeUnit.SECONDS);
+            changeLog.advanceStableVersion();
+            assertEquals(List.of(appointment.getId(), booked), ids(catchUp(null, token).changes()));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Откаченная транзакция оставляет пропуск в номерах; стабильный номер проходит его,
+     * когда следующее изменение старше medical.sync.settle-delay.
+     */
+    @Test
+    void gapOfRolledBackTransactionIsPassedAfterSettleDelay() throws Exception {
+        long patientId = newPatient();
+        String token = catchUp(patientId, null).token();
+        Patient patient = patientRepository.findById(patientId).orElseThrow();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Appointment appointment = appointmentRepository.saveAndFlush(
+                    Appointment.builder().dateTime(slot()).patient(patient).build());
+            changeLog.recordCreated(appointment);
+            status.setRollbackOnly();
+        });
+        long booked = book(patientId);
+
+        changeLog.advanceStableVersion();
+        assertTrue(catchUp(patientId, token).changes().isEmpty());
+
+        settleGaps();
+        assertEquals(List.of(created(booked)), catchUp(patientId, token).changes());
+    }
+
+    // Ответы синхронизации до more=false: сброс на снимок (по первому ответу), все изменения и последний токен.
+    private record Sync(boolean reset, List<AppointmentChange> changes, String token) {
+    }
+
+    private Sync catchUp(Long patientId, String since) {
+        List<AppointmentChange> changes = new ArrayList<>();
+        AppointmentChanges page = changeLog.findChanges(patientId, since, 100);
+        boolean reset = page.reset();
+        changes.addAll(page.changes());
+        while (page.more()) {
+            page = changeLog.findChanges(patientId, page.token(), 100);
+            changes.addAll(page.changes());
+        }
+        return new Sync(reset, changes, page.token());
+    }
+
+    /*
+     * Другие тесты могли оставить пропуски в номерах (откаченные бронирования), которые стабильный номер прошёл бы
+     * только через settle-delay: изменения журнала «состариваются», и стабильный номер доходит до последнего.
+     */
+    private void settleGaps() {
+        jdbcTemplate.update("UPDATE appointment_change SET changed_at = DATEADD(HOUR, -1, changed_at)");
+        changeLog.advanceStableVersion();
+    }
+
+    // Ожидаемые изменения строятся по текущим записям, поэтому вызываются до удаления.
+    private AppointmentChange created(long appointmentId) {
+        return change(AppointmentChange.Type.CREATED, appointmentId);
+    }
+
+    private List<AppointmentChange> deleted(List<Long> appointmentIds) {
+        return appointmentIds.stream().map(id -> change(AppointmentChange.Type.DELETED, id)).toList();
+    }
+
+    private AppointmentChange change(AppointmentChange.Type type, long appointmentId) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT patient_id, date_time FROM appointment WHERE id = ?",
+                appointmentId);
+        return new AppointmentChange(type, appointmentId, ((Number) row.get("patient_id")).longValue(),
+                ((Timestamp) row.get("date_time")).toLocalDateTime());
+    }
+
+    @SafeVarargs
+    private static List<Long> ids(List<AppointmentChange>... pages) {
+        List<Long> ids = new ArrayList<>();
+        for (List<AppointmentChange> page : pages) {
+            page.forEach(change -> ids.add(change.appointmentId()));
+        }
+        return ids;
+    }
+
+    // Пациент регистрируется вместе с пользователем, как все пациенты приложения (внешний ключ fk_users_patient).
+    private long newPatient() {
+        long id = userService.registerUser("change-log-" + USERNAMES.incrementAndGet(), "secret",
+                "Change Log Test", LocalDate.of(1990, 1, 1)).getPatient().getId();
+        patients.add(id);
+        return id;
+    }
+
+    private LocalDateTime slot() {
+        while (!availabilityService.isSlotStart(nextSlot)) {
+            nextSlot = nextSlot.plusMinutes(availabilityService.getSlotMinutes());
+        }
+        LocalDateTime slot = nextSlot;
+        nextSlot = nextSlot.plusMinutes(availabilityService.getSlotMinutes());
+        return slot;
+    }
+
+    // Бронирует следующий свободный слот от имени администратора и возвращает id созданной записи.
+    private long book(long patientId) throws Exception {
+        LocalDateTime slot = slot();
+        String body = JSON.writeValueAsString(Map.of("dateTime", slot.toString(), "patient", Map.of("id", patientId)));
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/appointment"))
+                .header("Authorization", "Bearer " + adminToken)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(5))
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        assertEquals(200, response.statusCode(), response.body());
+        return jdbcTemplate.queryForObject("SELECT id FROM appointment WHERE date_time = ?", Long.class,
+                Timestamp.valueOf(slot));
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = JSON.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        assertEquals(200, response.statusCode());
+        return JSON.readTree(response.body()).path("accessToken").asText();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
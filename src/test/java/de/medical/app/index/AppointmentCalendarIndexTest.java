@@ -0,0 +1,146 @@
+package de.medical.app.index;
+
+import de.medical.app.dto.CalendarEntry;
+import de.medical.app.model.Appointment;
+import de.medical.app.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Проверки календарного индекса: выборки по пациенту и по дням, перенос записи,
+ * удаление всех записей пациента (в том числе во время перестройки) и смена пациента у записи.
+ * Транзакции нет, поэтому изменения применяются сразу.
+ */
+class AppointmentCalendarIndexTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+    private static List<Long> ids(List<CalendarEntry> entries) {
+        return entries.stream().map(CalendarEntry::id).toList();
+    }
+
+    @Test
+    void findsRangeByPatientAndAcrossDays() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        index.add(1, 10, DAY.plusHours(9));
+        index.add(2, 20, DAY.plusHours(10));
+        index.add(3, 10, DAY.plusDays(1).plusHours(9));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(index.findRange(null, DAY, DAY.plusDays(2))));
+        assertEquals(List.of(1L, 3L), ids(index.findRange(10L, DAY, DAY.plusDays(2))));
+        // Правая граница не включается.
+        assertEquals(List.of(1L), ids(index.findRange(null, DAY, DAY.plusHours(10))));
+        assertEquals(2, index.countRange(null, DAY, DAY.plusDays(1)));
+        // Слоты по часу с 8:00: заняты 9:00 (бит 1) и 10:00 (бит 2).
+        assertEquals(0b110, index.occupancy(DAY.plusHours(8), 60, 10));
+    }
+
+    @Test
+    void isLoadedOnlyAfterRebuild() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        index.add(1, 10, DAY.plusHours(9));
+        assertFalse(index.isLoaded());
+
+        index.rebuild(List.of(new CalendarEntry(2L, 20L, DAY.plusHours(10))));
+
+        assertTrue(index.isLoaded());
+        assertEquals(List.of(2L), ids(index.findRange(null, DAY, DAY.plusDays(1))));
+    }
+
+    @Test
+    void movesAppointmentToAnotherDay() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        index.add(1, 10, DAY.plusHours(9));
+
+        index.add(1, 10, DAY.plusDays(3).plusHours(9));
+
+        assertEquals(0, index.countRange(null, DAY, DAY.plusDays(1)));
+        assertEquals(List.of(1L), ids(index.findRange(10L, DAY, DAY.plusDays(7))));
+    }
+
+    @Test
+    void removesAllAppointmentsOfPatient() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        for (int i = 0; i < 10; i++) {
+            index.add(i + 1, i % 2 == 0 ? 10 : 20, DAY.plusHours(i * 6));
+        }
+
+        index.removePatient(10);
+
+        assertEquals(0, index.countRange(10L, DAY, DAY.plusDays(3)));
+        assertEquals(List.of(2L, 4L, 6L, 8L, 10L), ids(index.findRange(null, DAY, DAY.plusDays(3))));
+        assertEquals(5, index.countRange(20L, DAY, DAY.plusDays(3)));
+    }
+
+    @Test
+    void removesChunkOfPatientAppointments() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        for (int i = 0; i < 6; i++) {
+            index.add(i + 1, i % 2 == 0 ? 10 : 20, DAY.plusHours(i * 8));
+        }
+
+        index.removeAll(10, List.of(1L, 5L, 99L));
+
+        assertEquals(List.of(3L), ids(index.findRange(10L, DAY, DAY.plusDays(2))));
+        assertEquals(List.of(2L, 3L, 4L, 6L), ids(index.findRange(null, DAY, DAY.plusDays(2))));
+    }
+
+    @Test
+    void keepsPatientRemovalMadeDuringRebuild() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        List<CalendarEntry> snapshot = List.of(
+                new CalendarEntry(1L, 10L, DAY.plusHours(9)),
+                new CalendarEntry(2L, 20L, DAY.plusHours(10)));
+
+        // Пациент удаляется, пока перестройка читает снимок, в котором его записи ещё есть;
+        // в текущем (пустом) индексе записей пациента нет, но удаление всё равно должно попасть в журнал.
+        index.rebuild(() -> new Iterator<>() {
+            private final Iterator<CalendarEntry> entries = snapshot.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public CalendarEntry next() {
+                CalendarEntry entry = entries.next();
+                if (!entries.hasNext()) {
+                    index.removePatient(10);
+                }
+                return entry;
+            }
+        });
+
+        assertEquals(List.of(2L), ids(index.findRange(null, DAY, DAY.plusDays(1))));
+        assertEquals(0, index.countRange(10L, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void listenerMovesAppointmentToNewPatient() {
+        AppointmentCalendarIndex index = new AppointmentCalendarIndex();
+        AppointmentIndexListener listener = new AppointmentIndexListener(index);
+        Patient first = Patient.builder().id(10L).build();
+        Patient second = Patient.builder().id(20L).build();
+        Appointment appointment = Appointment.builder().id(1L).dateTime(DAY.plusHours(9)).patient(first).build();
+        listener.onSave(appointment);
+
+        appointment.setPatient(second);
+        appointment.setDateTime(DAY.plusDays(1).plusHours(9));
+        listener.onSave(appointment);
+
+        assertEquals(0, index.countRange(10L, DAY, DAY.plusDays(2)));
+        assertEquals(List.of(1L), ids(index.findRange(20L, DAY, DAY.plusDays(2))));
+        assertEquals(List.of(1L), ids(index.findRange(null, DAY, DAY.plusDays(2))));
+
+        listener.onRemove(appointment);
+        assertTrue(index.findRange(null, DAY, DAY.plusDays(2)).isEmpty());
+    }
+}
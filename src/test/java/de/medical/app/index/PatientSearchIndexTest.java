@@ -0,0 +1,131 @@
+package de.medical.app.index;
+
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.dto.SearchPage;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Проверки поискового индекса имён: нормализация, ранжирование (точное > префикс > опечатка),
+ * постраничная выдача, обновление и удаление пациентов, изменения во время перестройки.
+ * Транзакции нет, поэтому изменения применяются сразу.
+ */
+class PatientSearchIndexTest {
+
+    private static final LocalDate BIRTH = LocalDate.of(1980, 1, 1);
+
+    private static PatientSearchIndex index(String... names) {
+        PatientSearchIndex index = new PatientSearchIndex();
+        for (int i = 0; i < names.length; i++) {
+            index.add(i + 1, names[i], BIRTH);
+        }
+        return index;
+    }
+
+    private static List<String> names(SearchPage<PatientSummary> page) {
+        return page.items().stream().map(PatientSummary::name).toList();
+    }
+
+    @Test
+    void normalizesCaseDiacriticsAndPunctuation() {
+        assertArrayEquals(new String[]{"jose", "muller", "strasse"}, PatientSearchIndex.tokenize("José  Müller-Straße"));
+        assertArrayEquals(new String[0], PatientSearchIndex.tokenize(" ,.- "));
+    }
+
+    @Test
+    void ranksExactBeforePrefixBeforeTypo() {
+        PatientSearchIndex index = index("Meier", "Meyers", "Meyer", "Smith");
+
+        SearchPage<PatientSummary> page = index.search("meyer", 0, 10);
+
+        // "meyer" — точное совпадение, "meyers" — префикс, "meier" — одна опечатка.
+        assertEquals(List.of("Meyer", "Meyers", "Meier"), names(page));
+        assertEquals(3, page.total());
+        // Слова короче 3 букв ищутся только по префиксу, без опечаток.
+        assertEquals(0, index.search("my", 0, 10).total());
+        assertEquals(List.of("Smith"), names(index.search("sm", 0, 10)));
+    }
+
+    @Test
+    void requiresEveryQueryWord() {
+        PatientSearchIndex index = index("Anna Schmidt", "Anna Schneider", "Peter Schmidt");
+
+        assertEquals(List.of("Anna Schmidt"), names(index.search("schmidt anna", 0, 10)));
+        assertEquals(0, index.search("anna zzzz", 0, 10).total());
+    }
+
+    @Test
+    void pagesThroughRankedResults() {
+        PatientSearchIndex index = index("Lee A", "Lee B", "Lee C", "Lee D", "Lee E");
+
+        SearchPage<PatientSummary> second = index.search("lee", 1, 2);
+
+        assertEquals(5, second.total());
+        assertEquals(List.of("Lee C", "Lee D"), names(second));
+        assertTrue(index.search("lee", 3, 2).items().isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovesPatients() {
+        PatientSearchIndex index = index("Olga Ivanova");
+
+        index.add(1, "Olga Petrova", BIRTH);
+        assertEquals(0, index.search("ivanova", 0, 10).total());
+        assertEquals(1, index.search("petrova", 0, 10).total());
+
+        index.remove(1);
+        assertEquals(0, index.search("olga", 0, 10).total());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void isLoadedOnlyAfterRebuild() {
+        PatientSearchIndex index = index("Olga Ivanova");
+        assertFalse(index.isLoaded());
+
+        index.rebuild(List.of(new PatientSummary(2L, "Anna Schmidt", BIRTH)));
+
+        assertTrue(index.isLoaded());
+        assertEquals(List.of("Anna Schmidt"), names(index.search("anna", 0, 10)));
+    }
+
+    @Test
+    void keepsChangesMadeDuringRebuild() {
+        PatientSearchIndex index = new PatientSearchIndex();
+        List<PatientSummary> snapshot = List.of(
+                new PatientSummary(1L, "Old Name", BIRTH),
+                new PatientSummary(2L, "Removed Patient", BIRTH));
+
+        // Пока перестройка читает снимок, пациент 1 переименовывается, а пациент 2 удаляется.
+        index.rebuild(() -> new Iterator<>() {
+            private final Iterator<PatientSummary> patients = snapshot.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return patients.hasNext();
+            }
+
+            @Override
+            public PatientSummary next() {
+                PatientSummary patient = patients.next();
+                if (!patients.hasNext()) {
+                    index.add(1, "New Name", BIRTH);
+                    index.remove(2);
+                }
+                return patient;
+            }
+        });
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("New Name"), names(index.search("name", 0, 10)));
+        assertEquals(0, index.search("removed", 0, 10).total());
+    }
+}
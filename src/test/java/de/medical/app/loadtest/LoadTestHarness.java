@@ -0,0 +1,479 @@
+package de.medical.app.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.MedicalApplication;
+import de.medical.app.reactive.ReactiveApiServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * LoadTestHarness — нагрузочный тест без внешних сервисов.
+ *
+ * Поднимает приложение на свободном локальном порту (или использует уже запущенное, --load.url),
+ * входит под администратором и пользователями и гоняет смесь запросов с load.clients параллельными клиентами
+ * по замкнутой модели (каждый клиент отправляет следующий запрос сразу после ответа на предыдущий).
+ * Клиенты асинхронные (HttpClient.sendAsync) и не занимают по потоку, у каждого своё соединение,
+ * поэтому можно держать тысячи одновременных соединений.
+ * После прогрева (load.warmup) в течение load.duration измеряется время ответа каждого запроса;
+ * в конце печатается пропускная способность и p50/p95/p99/max по каждому типу запроса.
+ *
+ * Сравнение режимов выполнения запросов: --load.modes=platform,virtual --load.clients=1000,5000,10000
+ * поднимает приложение по очереди с пулом потоков Tomcat и с виртуальными потоками (профиль virtual-threads),
+ * прогоняет каждое число клиентов и печатает сводную таблицу. Виртуальные потоки требуют Java 21:
+ *     ./mvnw -Ploadtest test-compile exec:exec -Dload.java=/path/to/jdk21/bin/java -Dload.args="..."
+ * При 10 000 клиентов в одном процессе открыто около 20 000 сокетов, лимит файловых дескрипторов (ulimit -n)
+ * должен быть больше.
+ *
+ * Режим reactive поднимает приложение с реактивным API чтения (medical.reactive.enabled=true) и отправляет
+ * запросы чтения на его порт Reactor Netty; вход и регистрация остаются на MVC-стеке. Например,
+ *     --load.modes=platform,reactive --load.clients=1000,5000
+ * сравнивает поток на запрос с event loop на одной и той же смеси запросов. Для приложения, поднятого в этом процессе,
+ * во время измерения снимаются ресурсы: наибольшее число занятых соединений с базой (пулы Hikari и R2DBC),
+ * наибольшее число живых потоков JVM и прирост занятой кучи в пересчёте на клиента. Потоки и куча включают
+ * и сам нагрузочный клиент, одинаковый во всех режимах, поэтому сравнивать стоит разницу между режимами.
+ *
+ * Запуск:
+ *     ./mvnw -Ploadtest test-compile exec:exec -Dload.args="--load.clients=100 --load.duration=60s"
+ * Параметры с префиксом --load. относятся к тесту, остальные передаются приложению, например
+ *     --medical.seed.synthetic.enabled=true --medical.seed.synthetic.patients=100000
+ * (тогда пользовательские запросы выполняются и от имени синтетических пользователей).
+ *
+ * Параметры:
+ * - load.url       — адрес уже запущенного приложения (по умолчанию приложение поднимается в этом процессе);
+ * - load.modes     — режимы для сравнения: platform, virtual, reactive (по умолчанию приложение запускается как настроено);
+ * - load.clients   — число параллельных клиентов или список через запятую (32);
+ * - load.warmup    — длительность прогрева (10s), load.duration — длительность измерения (30s);
+ * - load.mix       — веса типов запросов (см. DEFAULT_MIX);
+ * - load.users     — сколько синтетических пользователей использовать (50), load.synthetic-password — их пароль.
+ */
+public class LoadTestHarness {
+
+    private static final String DEFAULT_MIX = "appointments=35,appointments-admin=10,patients=15,patient=30,register=10";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final AtomicLong REGISTRATIONS = new AtomicLong();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    // Потоки для обработки ответов; сами запросы ждут ответа без занятого потока.
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "load-client");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .executor(executor)
+            .build();
+    private final String baseUrl;
+    private final String readUrl; // адрес запросов чтения: MVC-стек или реактивный API
+    private final MeterRegistry meters; // метрики приложения в этом процессе (null для --load.url)
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private String adminToken;
+    private final List<String> userTokens = new ArrayList<>();
+    private final List<Long> patientIds = new ArrayList<>();
+
+    private LoadTestHarness(String baseUrl, String readUrl, MeterRegistry meters) {
+        this.baseUrl = baseUrl;
+        this.readUrl = readUrl;
+        this.meters = meters;
+    }
+
+    /*
+     * Тип запроса нагрузочной смеси.
+     */
+    private enum Operation {
+        APPOINTMENTS("appointments", "GET /appointment (user)"),
+        APPOINTMENTS_ADMIN("appointments-admin", "GET /appointment (admin)"),
+        PATIENTS("patients", "GET /patients (admin)"),
+        PATIENT("patient", "GET /patients/{id} (admin)"),
+        REGISTER("register", "POST /auth/register");
+
+        final String key;
+        final String label;
+
+        Operation(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--load.") && arg.contains("=")) {
+                options.put(arg.substring(7, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                applicationArgs.add(arg);
+            }
+        }
+        int[] clients = Arrays.stream(options.getOrDefault("clients", "32").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        Operation[] schedule = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        int users = Integer.parseInt(options.getOrDefault("users", "50"));
+        String syntheticPassword = options.getOrDefault("synthetic-password", "synthetic");
+
+        List<String> summary = new ArrayList<>();
+        if (options.containsKey("url")) {
+            runAll(options.get("url"), options.get("url"), null, "external", clients, warmup, duration, schedule, users, syntheticPassword, summary);
+        } else {
+            for (String mode : options.getOrDefault("modes", "default").split(",")) {
+                List<String> modeArgs = new ArrayList<>(List.of(
+                        "--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN"));
+                switch (mode.trim()) {
+                    // Те же лимиты соединений, что и в профиле virtual-threads, чтобы режимы различались только потоками обработки запросов.
+                    case "platform" -> modeArgs.addAll(List.of("--spring.threads.virtual.enabled=false",
+                            "--server.tomcat.max-connections=20000", "--server.tomcat.accept-count=1000",
+                            "--spring.datasource.hikari.connection-timeout=10000"));
+                    case "virtual" -> modeArgs.add("--spring.profiles.active=virtual-threads");
+                    // Чтения идут в реактивный API на свободном порту; MVC-стек настроен как в режиме platform.
+                    case "reactive" -> modeArgs.addAll(List.of("--medical.reactive.enabled=true",
+                            "--medical.reactive.port=0", "--spring.threads.virtual.enabled=false",
+                            "--server.tomcat.max-connections=20000", "--server.tomcat.accept-count=1000",
+                            "--spring.datasource.hikari.connection-timeout=10000"));
+                    case "default" -> {
+                    }
+                    default -> throw new IllegalArgumentException("Unknown mode in load.modes: " + mode);
+                }
+                modeArgs.addAll(applicationArgs);
+                try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MedicalApplication.class)
+                        .run(modeArgs.toArray(String[]::new))) {
+                    String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                    String readUrl = "reactive".equals(mode.trim())
+                            ? "http://localhost:" + context.getBean(ReactiveApiServer.class).getPort()
+                            : url;
+                    runAll(url, readUrl, context.getBean(MeterRegistry.class), mode.trim(), clients, warmup, duration, schedule, users, syntheticPassword, summary);
+                }
+            }
+        }
+        if (summary.size() > 1) {
+            System.out.printf("%n%-10s %8s %9s %7s %9s %9s %9s %9s %9s %8s %8s %11s%n",
+                    "mode", "clients", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms",
+                    "db conn", "threads", "heap KB/cl");
+            summary.forEach(System.out::println);
+        }
+    }
+
+    private static void runAll(String url, String readUrl, MeterRegistry meters, String mode, int[] clients, Duration warmup, Duration duration,
+                               Operation[] schedule, int users, String syntheticPassword, List<String> summary)
+            throws IOException, InterruptedException {
+        LoadTestHarness harness = new LoadTestHarness(url, readUrl, meters);
+        try {
+            harness.prepare(users, syntheticPassword);
+            for (int count : clients) {
+                String total = harness.run(count, warmup, duration, schedule);
+                summary.add(String.format("%-10s %8d %s", mode, count, total));
+            }
+        } finally {
+            harness.executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Вход под администратором и пользователями, выборка идентификаторов пациентов для GET /patients/{id}.
+     */
+    private void prepare(int syntheticUsers, String syntheticPassword) throws IOException, InterruptedException {
+        adminToken = login("admin", "admin123");
+        for (String[] user : new String[][]{{"user1", "user111"}, {"user2", "user222"}}) {
+            String token = login(user[0], user[1]);
+            if (token != null) {
+                userTokens.add(token);
+            }
+        }
+        if (adminToken == null || userTokens.isEmpty()) {
+            throw new IllegalStateException("Seeded admin and user accounts are required");
+        }
+
+        HttpResponse<String> page = http.send(get("/patients?size=500", adminToken), HttpResponse.BodyHandlers.ofString());
+        for (JsonNode patient : JSON.readTree(page.body()).path("items")) {
+            patientIds.add(patient.path("id").asLong());
+        }
+        // Синтетические пользователи (см. SyntheticDataGenerator) называются synthetic1 … synthetic<N>.
+        for (int i = 1; i <= syntheticUsers; i++) {
+            String token = login("synthetic" + i, syntheticPassword);
+            if (token == null) {
+                break;
+            }
+            userTokens.add(token);
+        }
+        System.out.printf("Target %s (reads %s): %d user accounts, %d patient ids%n", baseUrl, readUrl, userTokens.size(), patientIds.size());
+    }
+
+    /*
+     * Прогон одного числа клиентов. Возвращает итоговую строку для сводной таблицы.
+     */
+    private String run(int clients, Duration warmup, Duration duration, Operation[] schedule) throws InterruptedException {
+        Resources resources = meters == null ? null : new Resources();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureTo = measureFrom + duration.toNanos();
+        Recorder[] recorders = new Recorder[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        System.out.printf("%nRunning %d clients against %s: %s warmup, %s measurement%n", clients, readUrl, warmup, duration);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (resources != null) {
+            sampler.scheduleAtFixedRate(() -> {
+                long now = System.nanoTime();
+                if (now >= measureFrom && now <= measureTo) {
+                    resources.sample(meters);
+                }
+            }, 0, 100, TimeUnit.MILLISECONDS);
+        }
+        for (int c = 0; c < clients; c++) {
+            recorders[c] = new Recorder();
+            next(recorders[c], schedule, measureFrom, measureTo, done);
+        }
+        done.await();
+        sampler.shutdownNow();
+        return report(recorders, duration) + " " + (resources == null
+                ? String.format("%8s %8s %11s", "-", "-", "-")
+                : resources.row(clients));
+    }
+
+    /*
+     * Отправляет следующий запрос клиента; по завершении ответа записывает время и отправляет следующий.
+     * Запросы одного клиента идут строго последовательно, поэтому его Recorder не требует синхронизации.
+     */
+    private void next(Recorder recorder, Operation[] schedule, long measureFrom, long measureTo, CountDownLatch done) {
+        long start = System.nanoTime();
+        if (start >= measureTo) {
+            done.countDown();
+            return;
+        }
+        Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+        http.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long end = System.nanoTime();
+                    if (start >= measureFrom && end <= measureTo) {
+                        recorder.record(operation, end - start, error == null && response.statusCode() < 400);
+                    }
+                    next(recorder, schedule, measureFrom, measureTo, done);
+                });
+    }
+
+    private HttpRequest request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Регистрация — запись, она есть только в MVC-стеке; остальные запросы идут на readUrl.
+        return switch (operation) {
+            case APPOINTMENTS -> get("/appointment", userTokens.get(random.nextInt(userTokens.size())));
+            case APPOINTMENTS_ADMIN -> get("/appointment?size=50", adminToken);
+            case PATIENTS -> get("/patients?size=50", adminToken);
+            case PATIENT -> get("/patients/" + patientIds.get(random.nextInt(patientIds.size())), adminToken);
+            case REGISTER -> {
+                String username = "load-" + runId + "-" + REGISTRATIONS.incrementAndGet();
+                String body = "{\"username\":\"" + username + "\",\"password\":\"load-password\","
+                        + "\"name\":\"Load " + username + "\",\"birthDate\":\"1980-01-01\"}";
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .timeout(REQUEST_TIMEOUT)
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+        };
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(readUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        String body = JSON.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() == 200 ? JSON.readTree(response.body()).path("accessToken").asText() : null;
+    }
+
+    private static String report(Recorder[] recorders, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%n%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long totalRequests = 0;
+        long totalErrors = 0;
+        List<long[]> all = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            List<long[]> parts = new ArrayList<>();
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                parts.add(recorder.latencies(operation));
+                errors += recorder.errors[operation.ordinal()];
+            }
+            long[] latencies = merge(parts);
+            if (latencies.length == 0) {
+                continue;
+            }
+            all.add(latencies);
+            totalRequests += latencies.length;
+            totalErrors += errors;
+            printRow(operation.label, latencies, errors, seconds);
+        }
+        if (totalRequests == 0) {
+            System.out.println("No requests completed during the measurement window");
+            return String.format("%9d %7d %9s %9s %9s %9s %9s", 0, totalErrors, "-", "-", "-", "-", "-");
+        }
+        printRow("total", merge(all), totalErrors, seconds);
+        return row(merge(all), totalErrors, seconds);
+    }
+
+    private static void printRow(String label, long[] sorted, long errors, double seconds) {
+        System.out.printf("%-28s %s%n", label, row(sorted, errors, seconds));
+    }
+
+    private static String row(long[] sorted, long errors, double seconds) {
+        return String.format("%9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f", sorted.length, errors,
+                sorted.length / seconds, millis(percentile(sorted, 50)), millis(percentile(sorted, 95)),
+                millis(percentile(sorted, 99)), millis(sorted[sorted.length - 1]));
+    }
+
+    private static long[] merge(List<long[]> parts) {
+        long[] merged = new long[parts.stream().mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, merged, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    // Перцентиль по методу ближайшего ранга.
+    private static long percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /*
+     * Веса вида "appointments=35,patient=30" превращаются в таблицу, из которой тип запроса выбирается равновероятно.
+     */
+    private static Operation[] parseMix(String mix) {
+        List<Operation> schedule = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            Operation operation = Arrays.stream(Operation.values())
+                    .filter(candidate -> candidate.key.equals(weight[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation in load.mix: " + weight[0]));
+            for (int i = Integer.parseInt(weight[1].trim()); i > 0; i--) {
+                schedule.add(operation);
+            }
+        }
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("load.mix must contain at least one positive weight");
+        }
+        return schedule.toArray(Operation[]::new);
+    }
+
+    // Длительность в формате 30s, 5m или ISO-8601 (PT30S).
+    private static Duration parseDuration(String value) {
+        if (value.startsWith("P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+
+    /*
+     * Ресурсы приложения во время измерения: занятые соединения с базой, живые потоки и занятая куча.
+     * Базовый объём кучи снимается после сборки мусора перед прогоном; прирост считается по среднему
+     * за измерение, потому что отдельные замеры зависят от того, когда прошла очередная сборка.
+     */
+    private static final class Resources {
+        private final long baselineHeap;
+        private volatile double maxConnections;
+        private volatile int maxThreads;
+        private volatile long heapTotal;
+        private volatile int samples;
+
+        Resources() {
+            System.gc();
+            baselineHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+
+        // Вызывается только потоком load-sampler.
+        void sample(MeterRegistry meters) {
+            double connections = meters.find("hikaricp.connections.active").gauges().stream().mapToDouble(Gauge::value).sum()
+                    + meters.find("r2dbc.pool.acquired").gauges().stream().mapToDouble(Gauge::value).sum();
+            maxConnections = Math.max(maxConnections, connections);
+            maxThreads = Math.max(maxThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+            heapTotal += ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            samples++;
+        }
+
+        String row(int clients) {
+            if (samples == 0) {
+                return String.format("%8s %8s %11s", "-", "-", "-");
+            }
+            double heapPerClient = (heapTotal / (double) samples - baselineHeap) / clients / 1024.0;
+            return String.format("%8.0f %8d %11.1f", maxConnections, maxThreads, heapPerClient);
+        }
+    }
+
+    /*
+     * Время ответов одного клиента по типам запросов (без синхронизации: запросы клиента идут последовательно).
+     */
+    private static final class Recorder {
+        private final long[][] latencies = new long[Operation.values().length][1024];
+        private final int[] counts = new int[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+
+        void record(Operation operation, long nanos, boolean ok) {
+            int index = operation.ordinal();
+            if (!ok) {
+                errors[index]++;
+            }
+            if (counts[index] == latencies[index].length) {
+                latencies[index] = Arrays.copyOf(latencies[index], counts[index] * 2);
+            }
+            latencies[index][counts[index]++] = nanos;
+        }
+
+        long[] latencies(Operation operation) {
+            return Arrays.copyOf(latencies[operation.ordinal()], counts[operation.ordinal()]);
+        }
+    }
+}
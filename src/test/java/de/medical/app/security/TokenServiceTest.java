@@ -0,0 +1,95 @@
+package de.medical.app.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+ * Проверки токенов доступа: данные пользователя переживают выпуск и проверку,
+ * а просроченный, изменённый, подписанный другим ключом или повреждённый токен отклоняется без исключений.
+ */
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final MedicalUserDetails USER = new MedicalUserDetails(7L, "user1", "secret", "ROLE_USER", 3L);
+
+    private static TokenService service(String secret, Duration ttl) throws Exception {
+        return new TokenService(secret, ttl, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void parsesIssuedToken() throws Exception {
+        TokenService tokens = service(SECRET, Duration.ofMinutes(15));
+
+        MedicalUserDetails parsed = tokens.parse(tokens.issue(USER));
+
+        assertNotNull(parsed);
+        assertEquals(7L, parsed.getId());
+        assertEquals("user1", parsed.getUsername());
+        assertEquals("ROLE_USER", parsed.getRole());
+        assertEquals(3L, parsed.getPatientId());
+        // Пароль в токен не попадает.
+        assertEquals("", parsed.getPassword());
+    }
+
+    @Test
+    void keepsMissingPatientAndSeparatorsInUsername() throws Exception {
+        TokenService tokens = service(SECRET, Duration.ofMinutes(15));
+        MedicalUserDetails admin = new MedicalUserDetails(1L, "ad|min", "x", "ROLE_ADMIN", null);
+
+        MedicalUserDetails parsed = tokens.parse(tokens.issue(admin));
+
+        assertNotNull(parsed);
+        assertEquals("ad|min", parsed.getUsername());
+        assertNull(parsed.getPatientId());
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        TokenService tokens = service(SECRET, Duration.ofSeconds(-2));
+
+        assertNull(tokens.parse(tokens.issue(USER)));
+        assertEquals(1, tokens.failureCount());
+    }
+
+    @Test
+    void rejectsModifiedPayload() throws Exception {
+        TokenService tokens = service(SECRET, Duration.ofMinutes(15));
+        String token = tokens.issue(USER);
+        String signature = token.substring(token.indexOf('.') + 1);
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace("ROLE_USER", "ROLE_ADMIN").getBytes(StandardCharsets.UTF_8));
+
+        assertNull(tokens.parse(forged + "." + signature));
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() throws Exception {
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        TokenService other = service(Base64.getEncoder().encodeToString(otherKey), Duration.ofMinutes(15));
+
+        assertNull(service(SECRET, Duration.ofMinutes(15)).parse(other.issue(USER)));
+    }
+
+    @Test
+    void rejectsMalformedTokens() throws Exception {
+        TokenService tokens = service(SECRET, Duration.ofMinutes(15));
+        String token = tokens.issue(USER);
+
+        assertNull(tokens.parse(""));
+        assertNull(tokens.parse("no-dot"));
+        assertNull(tokens.parse(".signature"));
+        assertNull(tokens.parse(token.substring(0, token.indexOf('.')) + ".not base64!"));
+        assertNull(tokens.parse(token.substring(0, token.length() - 2)));
+        assertEquals(5, tokens.failureCount());
+    }
+}
@@ -0,0 +1,40 @@
+package de.medical.app.service;
+
+import de.medical.app.dto.AppointmentListVersion;
+import de.medical.app.dto.Versioned;
+import de.medical.app.repository.AppointmentRepository;
+import de.medical.app.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+ * Проверка условного чтения списка записей: версия читается до данных, поэтому изменение,
+ * зафиксированное во время чтения страницы, не может получить ETag вместе с устаревшими данными.
+ */
+class AppointmentServiceTest {
+
+    @Test
+    void readsVersionBeforeBody() {
+        PatientRepository patients = mock(PatientRepository.class);
+        AppointmentService service = new AppointmentService(mock(AppointmentRepository.class), patients, mock(JdbcTemplate.class));
+        AppointmentListVersion before = new AppointmentListVersion(0, 1);
+        AppointmentListVersion after = new AppointmentListVersion(0, 2);
+        when(patients.findAppointmentListVersion(7L)).thenReturn(Optional.of(before));
+
+        Versioned<String> page = service.readVersioned(7L, () -> {
+            // Во время чтения страницы другая транзакция создаёт запись пациента и фиксируется.
+            when(patients.findAppointmentListVersion(7L)).thenReturn(Optional.of(after));
+            return "page with the new appointment";
+        });
+
+        // ETag старше данных: следующий условный запрос не совпадёт и получит страницу заново.
+        assertEquals(before, page.version());
+        assertEquals("page with the new appointment", page.body());
+    }
+}
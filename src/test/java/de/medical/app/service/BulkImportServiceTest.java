@@ -0,0 +1,98 @@
+package de.medical.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.medical.app.dto.ImportReport;
+import de.medical.app.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/*
+ * Проверки массового импорта: CSV разбирается с учётом кавычек, а занятое имя пропускает только свою строку,
+ * даже если оно было занято между проверкой и вставкой порции.
+ */
+@SpringBootTest
+class BulkImportServiceTest {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private TaskExecutor passwordHashExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static ByteArrayInputStream csv(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parsesQuotedCsvFields() throws Exception {
+        ImportReport report = bulkImportService.importUsers(csv(
+                "username,password,name,birthDate",
+                "csv_quoted,\"pa,ss\",\"Doe, John \"\"JD\"\"\",1990-01-31",
+                "",
+                "csv_bad_date,secret,Somebody,31.01.1990",
+                "csv_quoted,other,Duplicate In File,1991-02-01"), BulkImportService.Format.CSV);
+
+        assertEquals(3, report.getReceived());
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getSkipped());
+        assertEquals(List.of("csv_quoted"), report.getSkippedUsernames());
+        assertEquals(1, report.getFailed());
+        String name = jdbcTemplate.queryForObject(
+                "SELECT p.name FROM users u JOIN patient p ON p.id = u.patient_id WHERE u.username = 'csv_quoted'", String.class);
+        assertEquals("Doe, John \"JD\"", name);
+        String hash = jdbcTemplate.queryForObject("SELECT password FROM users WHERE username = 'csv_quoted'", String.class);
+        assertTrue(passwordEncoder.matches("pa,ss", hash));
+    }
+
+    @Test
+    void skipsUsernameTakenAfterCheck() throws Exception {
+        // Проверка занятых имён ничего не находит, как если бы admin был создан сразу после неё:
+        // порция откатывается на уникальном индексе и записывается заново по одной строке.
+        BulkImportService service = new BulkImportService(mock(UserRepository.class), entityManager, transactionManager,
+                passwordEncoder, passwordHashExecutor, objectMapper, 1000);
+
+        ImportReport report = service.importUsers(csv(
+                "csv_race_1,secret,First,1980-05-05",
+                "admin,secret,Intruder,1980-05-05",
+                "csv_race_2,secret,Second,1980-05-05"), BulkImportService.Format.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getSkipped());
+        assertEquals(List.of("admin"), report.getSkippedUsernames());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username IN ('csv_race_1', 'csv_race_2')", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM patient WHERE name = 'Intruder'", Integer.class));
+    }
+}
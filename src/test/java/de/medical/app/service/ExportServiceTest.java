@@ -0,0 +1,58 @@
+package de.medical.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.medical.app.model.Appointment;
+import de.medical.app.repository.AppointmentRepository;
+import de.medical.app.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/*
+ * Проверка выгрузки NDJSON: по строке на запись, а буфер вывода сбрасывается раз в FLUSH_EVERY строк,
+ * а не после каждой строки.
+ */
+class ExportServiceTest {
+
+    // Выходной поток, считающий вызовы flush (каждый сброс — отдельный кусок ответа сервлета).
+    private static final class CountingStream extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    @Test
+    void flushesOncePerChunkOfRows() throws Exception {
+        AppointmentRepository appointments = mock(AppointmentRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(appointments.streamAll()).thenReturn(LongStream.rangeClosed(1, 1200).mapToObj(id -> Appointment.builder()
+                .id(id)
+                .dateTime(LocalDateTime.of(2025, 4, 1, 8, 0).plusMinutes(30 * id))
+                .build()));
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ExportService service = new ExportService(appointments, mock(PatientRepository.class), entityManager, objectMapper);
+        CountingStream out = new CountingStream();
+
+        long count = service.exportAppointments(out);
+
+        assertEquals(1200, count);
+        assertEquals(1200, out.toString(StandardCharsets.UTF_8).lines().count());
+        // Два сброса после 500 и 1000 строк и один в конце.
+        assertEquals(3, out.flushes);
+        verify(entityManager, times(2)).clear();
+    }
+}
@@ -0,0 +1,68 @@
+package de.medical.app.service;
+
+import de.medical.app.dto.CursorPage;
+import de.medical.app.dto.PatientSummary;
+import de.medical.app.model.Patient;
+import de.medical.app.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+ * Проверки постраничного просмотра пациентов по курсору: обход всех страниц даёт каждого пациента ровно один раз
+ * в порядке (name, id), в том числе для одинаковых имён и имён с символом-разделителем курсора.
+ */
+@SpringBootTest
+class PatientServiceTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> walk(PatientService.SortOrder sort, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<PatientSummary> page = patientService.findPage(sort, cursor, size);
+            page.getItems().forEach(patient -> ids.add(patient.id()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    void walksAllPagesInKeyOrder() {
+        for (String name : List.of("Paging|Test", "Paging|Test", "Paging", "Paging|", "Paging|Test|2")) {
+            patientRepository.save(Patient.builder().name(name).birthDate(LocalDate.of(1990, 1, 1)).build());
+        }
+
+        assertEquals(jdbcTemplate.queryForList("SELECT id FROM patient ORDER BY name, id", Long.class),
+                walk(PatientService.SortOrder.NAME, 2));
+        assertEquals(jdbcTemplate.queryForList("SELECT id FROM patient ORDER BY id", Long.class),
+                walk(PatientService.SortOrder.ID, 3));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSortOrder() {
+        patientRepository.save(Patient.builder().name("Cursor A").birthDate(LocalDate.of(1990, 1, 1)).build());
+        patientRepository.save(Patient.builder().name("Cursor B").birthDate(LocalDate.of(1990, 1, 1)).build());
+        String byName = patientService.findPage(PatientService.SortOrder.NAME, null, 1).getNextCursor();
+
+        // Курсор (id, name) не является числовым ключом сортировки по id.
+        assertThrows(IllegalArgumentException.class,
+                () -> patientService.findPage(PatientService.SortOrder.ID, byName, 1));
+    }
+}
@@ -0,0 +1,63 @@
+package de.medical.app.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+ * Проверки курсоров keyset-пагинации: ключи (dateTime, id) и (id, name) восстанавливаются без потерь,
+ * курсор пригоден для URL, а повреждённый курсор даёт IllegalArgumentException (ответ 400).
+ */
+class CursorCodecTest {
+
+    @Test
+    void roundTripsAppointmentKey() {
+        LocalDateTime dateTime = LocalDateTime.of(2025, 4, 1, 15, 0, 0, 123_000_000);
+        String cursor = CursorCodec.encode(dateTime, 42L);
+
+        String[] key = CursorCodec.decode(cursor, 2);
+
+        assertEquals(dateTime, LocalDateTime.parse(key[0]));
+        assertEquals(42L, Long.parseLong(key[1]));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        // Значения подобраны так, чтобы обычный Base64 содержал '+' или '/'.
+        String cursor = CursorCodec.encode("???>>>", 1L);
+
+        assertFalse(cursor.contains("+") || cursor.contains("/") || cursor.contains("="), cursor);
+        assertArrayEquals(new String[]{"???>>>", "1"}, CursorCodec.decode(cursor, 2));
+    }
+
+    @Test
+    void keepsSeparatorInLastPart() {
+        // Курсор страницы пациентов по имени: (id, name), имя может содержать разделитель.
+        String cursor = CursorCodec.encode(17L, "Smith|Jones|");
+
+        assertArrayEquals(new String[]{"17", "Smith|Jones|"}, CursorCodec.decode(cursor, 2));
+    }
+
+    @Test
+    void roundTripsSinglePartCursor() {
+        assertArrayEquals(new String[]{"17"}, CursorCodec.decode(CursorCodec.encode(17L), 1));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("not base64!", 2));
+    }
+
+    @Test
+    void rejectsCursorWithWrongNumberOfParts() {
+        String single = Base64.getUrlEncoder().withoutPadding().encodeToString("42".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode(single, 2));
+    }
+}